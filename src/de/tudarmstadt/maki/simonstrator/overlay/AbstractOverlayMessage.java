@@ -40,6 +40,10 @@ import de.tudarmstadt.maki.simonstrator.overlay.api.OverlayMessage;
  * able to increment a HopCount unified within the message rather than on
  * different places throughout your overlay.
  * 
+ * Messages are immutable once sent. The transmission size of sender and
+ * receiver is therefore computed only once, as analyzers call getSize()
+ * several times per message.
+ * 
  * <b>All fields and methods that are prefixed by an underscore are solely to be
  * used by analyzers and not within your applications code!</b>
  * 
@@ -57,6 +61,11 @@ public abstract class AbstractOverlayMessage implements OverlayMessage {
 
 	private int _operationID;
 
+	/**
+	 * Size of sender and receiver, -1 if not yet computed (after Kryo)
+	 */
+	private transient long _cachedSize = -1;
+
 	protected AbstractOverlayMessage() {
 		// for Kryo
 	}
@@ -96,6 +105,7 @@ public abstract class AbstractOverlayMessage implements OverlayMessage {
 		this._operationID = operationID;
 		this.sender = sender;
 		this.receiver = receiver;
+		this._cachedSize = computeSize();
 	}
 
 	/**
@@ -133,6 +143,13 @@ public abstract class AbstractOverlayMessage implements OverlayMessage {
 
 	@Override
 	public long getSize() {
+		if (_cachedSize == -1) {
+			_cachedSize = computeSize();
+		}
+		return _cachedSize;
+	}
+
+	private long computeSize() {
 		long size = 0;
 		if (sender != null) {
 			size += sender.getTransmissionSize();
@@ -21,8 +21,7 @@
 package de.tudarmstadt.maki.simonstrator.overlay;
 
 import java.io.Serializable;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.Arrays;
 
 import de.tudarmstadt.maki.simonstrator.api.common.graph.INodeID;
 import de.tudarmstadt.maki.simonstrator.api.component.network.NetID;
@@ -33,6 +32,11 @@ import de.tudarmstadt.maki.simonstrator.api.component.transport.TransInfo;
 /**
  * Base for Overlay-Contacts
  * 
+ * Almost all contacts have a single interface, which is therefore stored in
+ * two plain fields. Further interfaces are kept in small arrays in insertion
+ * order, which are only created when needed. Equal contacts can be shared via
+ * a {@link ContactPool}.
+ * 
  * @author Bjoern Richerzhagen
  * @version 1.0, 07/07/2011
  */
@@ -42,7 +46,21 @@ public class BasicOverlayContact implements OverlayContact, Serializable {
 
 	private INodeID nodeId;
 
-	private Map<NetInterfaceName, TransInfo> transInfos = new LinkedHashMap<>();
+	/**
+	 * The first (usually only) interface, valid if there is at least one
+	 */
+	private NetInterfaceName netName;
+
+	private TransInfo transInfo;
+
+	/**
+	 * Further interfaces in insertion order, null if there are none
+	 */
+	private NetInterfaceName[] moreNetNames;
+
+	private TransInfo[] moreTransInfos;
+
+	private int numberOfTransInfos = 0;
 
 	private transient int _cachedSize = -1;
 
@@ -69,7 +87,9 @@ public class BasicOverlayContact implements OverlayContact, Serializable {
 	public BasicOverlayContact(INodeID nodeId, NetInterfaceName netName,
 			TransInfo transInfo) {
 		this.nodeId = nodeId;
-		this.transInfos.put(netName, transInfo);
+		this.netName = netName;
+		this.transInfo = transInfo;
+		this.numberOfTransInfos = 1;
 	}
 
 	/**
@@ -92,7 +112,28 @@ public class BasicOverlayContact implements OverlayContact, Serializable {
 	 */
 	public BasicOverlayContact addTransInfo(NetInterfaceName netName,
 			TransInfo transInfo) {
-		this.transInfos.put(netName, transInfo);
+		int index = indexOf(netName);
+		if (index == 0) {
+			this.transInfo = transInfo;
+		} else if (index > 0) {
+			moreTransInfos[index - 1] = transInfo;
+		} else if (numberOfTransInfos == 0) {
+			this.netName = netName;
+			this.transInfo = transInfo;
+			numberOfTransInfos = 1;
+		} else {
+			int n = numberOfTransInfos - 1;
+			if (n == 0) {
+				moreNetNames = new NetInterfaceName[1];
+				moreTransInfos = new TransInfo[1];
+			} else {
+				moreNetNames = Arrays.copyOf(moreNetNames, n + 1);
+				moreTransInfos = Arrays.copyOf(moreTransInfos, n + 1);
+			}
+			moreNetNames[n] = netName;
+			moreTransInfos[n] = transInfo;
+			numberOfTransInfos++;
+		}
 		_cachedSize = -1;
 		return this;
 	}
@@ -104,18 +145,125 @@ public class BasicOverlayContact implements OverlayContact, Serializable {
 	 * @return
 	 */
 	public BasicOverlayContact removeTransInfo(NetInterfaceName netName) {
-		this.transInfos.remove(netName);
+		int index = indexOf(netName);
+		if (index < 0) {
+			return this;
+		}
+		if (index == 0) {
+			if (numberOfTransInfos == 1) {
+				this.netName = null;
+				this.transInfo = null;
+			} else {
+				// the next one becomes the first interface
+				this.netName = moreNetNames[0];
+				this.transInfo = moreTransInfos[0];
+				removeMore(0);
+			}
+		} else {
+			removeMore(index - 1);
+		}
+		numberOfTransInfos--;
 		_cachedSize = -1;
 		return this;
 	}
 
+	/**
+	 * Removes the further interface at the given position
+	 * 
+	 * @param i
+	 */
+	private void removeMore(int i) {
+		int n = moreNetNames.length;
+		if (n == 1) {
+			moreNetNames = null;
+			moreTransInfos = null;
+			return;
+		}
+		NetInterfaceName[] names = new NetInterfaceName[n - 1];
+		TransInfo[] infos = new TransInfo[n - 1];
+		System.arraycopy(moreNetNames, 0, names, 0, i);
+		System.arraycopy(moreTransInfos, 0, infos, 0, i);
+		System.arraycopy(moreNetNames, i + 1, names, i, n - 1 - i);
+		System.arraycopy(moreTransInfos, i + 1, infos, i, n - 1 - i);
+		moreNetNames = names;
+		moreTransInfos = infos;
+	}
+
+	/**
+	 * Position of the interface in insertion order, -1 if there is none
+	 * 
+	 * @param netName
+	 * @return
+	 */
+	private int indexOf(NetInterfaceName netName) {
+		if (numberOfTransInfos == 0) {
+			return -1;
+		}
+		if (netName == this.netName) {
+			return 0;
+		}
+		for (int i = 0; i < numberOfTransInfos - 1; i++) {
+			if (moreNetNames[i] == netName) {
+				return i + 1;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * The TransInfo of the given interface or null
+	 * 
+	 * @param netName
+	 * @return
+	 */
+	private TransInfo getTransInfo(NetInterfaceName netName) {
+		int index = indexOf(netName);
+		if (index < 0) {
+			return null;
+		}
+		return index == 0 ? transInfo : moreTransInfos[index - 1];
+	}
+
+	/**
+	 * True, if both contacts have the same interfaces with equal TransInfos
+	 * 
+	 * @param other
+	 * @return
+	 */
+	public boolean hasSameTransInfos(BasicOverlayContact other) {
+		if (numberOfTransInfos != other.numberOfTransInfos) {
+			return false;
+		}
+		for (int i = 0; i < numberOfTransInfos; i++) {
+			NetInterfaceName name = i == 0 ? netName : moreNetNames[i - 1];
+			TransInfo info = i == 0 ? transInfo : moreTransInfos[i - 1];
+			int index = other.indexOf(name);
+			if (index < 0) {
+				return false;
+			}
+			TransInfo otherInfo = index == 0 ? other.transInfo
+					: other.moreTransInfos[index - 1];
+			if (info == null ? otherInfo != null : !info.equals(otherInfo)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	@Override
 	public int getTransmissionSize() {
 		if (_cachedSize == -1) {
 			_cachedSize += nodeId.getTransmissionSize();
-			for (TransInfo transInfo : transInfos.values()) {
+			if (transInfo != null) {
 				_cachedSize += transInfo.getTransmissionSize();
 			}
+			if (moreTransInfos != null) {
+				for (TransInfo info : moreTransInfos) {
+					if (info != null) {
+						_cachedSize += info.getTransmissionSize();
+					}
+				}
+			}
 		}
 		return _cachedSize;
 	}
@@ -127,45 +275,46 @@ public class BasicOverlayContact implements OverlayContact, Serializable {
 
 	@Override
 	public NetID getNetID(NetInterfaceName netInterface) {
-		if (!transInfos.containsKey(netInterface)) {
+		TransInfo info = getTransInfo(netInterface);
+		if (info == null) {
 			return null;
 		}
-		return transInfos.get(netInterface).getNetId();
+		return info.getNetId();
 	}
 
 	@Override
 	public int getPort(NetInterfaceName netInterface) {
-		if (!transInfos.containsKey(netInterface)) {
+		TransInfo info = getTransInfo(netInterface);
+		if (info == null) {
 			return -1;
 		}
-		return transInfos.get(netInterface).getPort();
+		return info.getPort();
 	}
 
 	@Override
 	public TransInfo getTransInfo() {
-		if (transInfos.size() != 1) {
+		if (numberOfTransInfos != 1) {
 			throw new AssertionError();
 		}
-		for (TransInfo transInfo : transInfos.values()) {
-			return transInfo;
-		}
-		throw new AssertionError();
+		return transInfo;
 	}
 
 	@Override
 	public NetID getNetID() {
-		if (transInfos.size() != 1) {
-			throw new AssertionError();
-		}
-		for (TransInfo transInfo : transInfos.values()) {
-			return transInfo.getNetId();
-		}
-		throw new AssertionError();
+		return getTransInfo().getNetId();
 	}
 
 	@Override
 	public String toString() {
-		return "Contact: " + transInfos.toString();
+		StringBuilder str = new StringBuilder("Contact: {");
+		if (numberOfTransInfos > 0) {
+			str.append(netName).append('=').append(transInfo);
+		}
+		for (int i = 0; i < numberOfTransInfos - 1; i++) {
+			str.append(", ").append(moreNetNames[i]).append('=')
+					.append(moreTransInfos[i]);
+		}
+		return str.append('}').toString();
 	}
 
 	@Override
@@ -0,0 +1,55 @@
+package de.tudarmstadt.maki.simonstrator.overlay;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Interning pool for contacts: equal contacts (same node and same
+ * TransInfos) are replaced by one canonical instance, so that neighbor sets,
+ * cached lists and received messages do not keep their own copies of the
+ * same contact.
+ * 
+ * If a node shows up with different TransInfos, the newer contact becomes
+ * the canonical one. The pool keeps one contact per node and is meant to
+ * live as long as a simulation run, clear it between runs.
+ * 
+ * @param <T>
+ */
+public class ContactPool<T extends BasicOverlayContact> {
+
+	private final ConcurrentMap<T, T> contacts = new ConcurrentHashMap<T, T>();
+
+	/**
+	 * The canonical instance of the contact
+	 * 
+	 * @param contact
+	 * @return
+	 */
+	public T intern(T contact) {
+		if (contact == null) {
+			return null;
+		}
+		T canonical = contacts.putIfAbsent(contact, contact);
+		while (canonical != null && canonical != contact
+				&& !canonical.hasSameTransInfos(contact)) {
+			// the stale contact must not stay in the map as key
+			contacts.remove(canonical, canonical);
+			canonical = contacts.putIfAbsent(contact, contact);
+		}
+		return canonical == null ? contact : canonical;
+	}
+
+	/**
+	 * Number of canonical contacts
+	 * 
+	 * @return
+	 */
+	public int size() {
+		return contacts.size();
+	}
+
+	public void clear() {
+		contacts.clear();
+	}
+
+}
@@ -20,10 +20,11 @@
 
 package de.tudarmstadt.maki.simonstrator.overlay;
 
-import java.io.UnsupportedEncodingException;
 import java.math.BigInteger;
+import java.security.DigestException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
 
 import de.tudarmstadt.maki.simonstrator.api.Randoms;
 import de.tudarmstadt.maki.simonstrator.api.common.IDSpace;
@@ -37,7 +38,8 @@ import de.tudarmstadt.maki.simonstrator.api.common.UniqueID;
  * need additional utility methods.
  * 
  * This IDSpace creates positive IDs between (and including) 0 and
- * (2^numberOfBits - 1).
+ * (2^numberOfBits - 1). IDs of up to 256 bit are stored in long fields, see
+ * {@link #createFixedWidthID(BigInteger)}.
  * 
  * Use the IDSpace to create new IDs, do not call the ID-Constructors directly!
  * 
@@ -56,6 +58,26 @@ public class DefaultIDSpace implements IDSpace {
 
 	private final BigInteger TWO = new BigInteger("2");
 
+	/**
+	 * Number of 64 bit words of an ID
+	 */
+	private final int numberOfWords;
+
+	/**
+	 * Valid bits of the most significant word
+	 */
+	private final long topWordMask;
+
+	/**
+	 * SHA-1 digest and buffers, reused per thread
+	 */
+	private static final ThreadLocal<Sha1Buffers> SHA1_BUFFERS = new ThreadLocal<Sha1Buffers>() {
+		@Override
+		protected Sha1Buffers initialValue() {
+			return new Sha1Buffers();
+		}
+	};
+
 	/**
 	 * This Space generates positive IDs represented by
 	 * <code>numberOfBits</code> Bits (unsigned)
@@ -65,6 +87,9 @@ public class DefaultIDSpace implements IDSpace {
 	public DefaultIDSpace(int numberOfBits) {
 		this.numberOfBits = numberOfBits;
 		this.numberOfIDs = TWO.pow(numberOfBits);
+		this.numberOfWords = (numberOfBits + 63) >>> 6;
+		int topBits = numberOfBits - 64 * (numberOfWords - 1);
+		this.topWordMask = topBits == 64 ? -1L : (1L << topBits) - 1;
 		this.emptyID = this.createEmptyID();
 	}
 
@@ -104,39 +129,172 @@ public class DefaultIDSpace implements IDSpace {
 	public UniqueID createID(BigInteger bigInt) {
 		// only positive IDs
 		bigInt = bigInt.abs();
-		if (bigInt.compareTo(numberOfIDs) > 0) {
+		if (bigInt.compareTo(numberOfIDs) >= 0) {
 			// only IDs within range
 			bigInt = bigInt.mod(numberOfIDs);
 		}
-		return new OverlayNodeID(numberOfBits, bigInt);
+		return createFixedWidthID(bigInt);
 	}
 
 	@Override
 	public UniqueID createID(long value) {
+		if (value < 0) {
+			return new OverlayNodeID(numberOfBits, value);
+		}
+		if (numberOfBits <= 64) {
+			return new OverlayNodeID64(numberOfBits, value);
+		}
+		return createFixedWidthID(BigInteger.valueOf(value));
+	}
+
+	/**
+	 * The smallest representation of the given non-negative value: up to
+	 * 256 bit, IDs are stored in long fields instead of a BigInteger.
+	 * 
+	 * @param value
+	 * @return
+	 */
+	protected OverlayNodeID createFixedWidthID(BigInteger value) {
+		if (numberOfBits <= 64) {
+			return new OverlayNodeID64(numberOfBits, value.longValue());
+		} else if (numberOfBits <= 128) {
+			return new OverlayNodeID128(numberOfBits, value.shiftRight(64)
+					.longValue(), value.longValue());
+		} else if (numberOfBits <= 256) {
+			return new OverlayNodeID256(numberOfBits, value.shiftRight(192)
+					.longValue(), value.shiftRight(128).longValue(), value
+					.shiftRight(64).longValue(), value.longValue());
+		}
 		return new OverlayNodeID(numberOfBits, value);
 	}
 
+	/**
+	 * The ID is derived from the SHA-1 of the ISO-8859-1 encoded string
+	 * (characters outside of ISO-8859-1 are hashed as '?'), reduced to
+	 * numberOfBits. The digest and buffers are reused per thread, see
+	 * {@link #createIDsUsingSHA1(Collection)} for many strings at once.
+	 */
 	@Override
 	public UniqueID createIDUsingSHA1(String stringToHash) {
-		MessageDigest md;
-		byte[] sha1hash = new byte[numberOfBits];
+		return createIDFromDigest(sha1(stringToHash));
+	}
+
+	/**
+	 * Batch version of {@link #createIDUsingSHA1(String)}, e.g., for the
+	 * placement of content at the start of a scenario
+	 * 
+	 * @param stringsToHash
+	 * @return the IDs in iteration order
+	 */
+	public OverlayNodeID[] createIDsUsingSHA1(
+			Collection<String> stringsToHash) {
+		OverlayNodeID[] ids = new OverlayNodeID[stringsToHash.size()];
+		int i = 0;
+		for (String stringToHash : stringsToHash) {
+			ids[i++] = createIDFromDigest(sha1(stringToHash));
+		}
+		return ids;
+	}
+
+	/**
+	 * The words of the ID {@link #createIDUsingSHA1(String)} would return,
+	 * without creating the ID
+	 * 
+	 * @param stringToHash
+	 * @param words
+	 *            holder for getNumberOfWords() words, least significant first
+	 * @return the holder
+	 */
+	public long[] hashUsingSHA1(String stringToHash, long[] words) {
+		byte[] digest = sha1(stringToHash);
+		for (int i = 0; i < numberOfWords; i++) {
+			words[i] = getDigestWord(digest, i);
+		}
+		return words;
+	}
+
+	/**
+	 * Creates the ID of the digest directly in its fixed-width
+	 * representation
+	 */
+	private OverlayNodeID createIDFromDigest(byte[] digest) {
+		if (numberOfBits <= 64) {
+			return new OverlayNodeID64(numberOfBits, getDigestWord(digest, 0));
+		} else if (numberOfBits <= 128) {
+			return new OverlayNodeID128(numberOfBits,
+					getDigestWord(digest, 1), getDigestWord(digest, 0));
+		} else if (numberOfBits <= 256) {
+			return new OverlayNodeID256(numberOfBits,
+					getDigestWord(digest, 3), getDigestWord(digest, 2),
+					getDigestWord(digest, 1), getDigestWord(digest, 0));
+		}
+		// the digest has less than numberOfBits bits
+		return new OverlayNodeID(numberOfBits, new BigInteger(1, digest));
+	}
+
+	/**
+	 * Word of the digest (big-endian) with the given index, 0 is the least
+	 * significant one, reduced to numberOfBits
+	 */
+	private long getDigestWord(byte[] digest, int index) {
+		if (index >= numberOfWords) {
+			return 0;
+		}
+		int end = digest.length - 8 * index;
+		long word = 0;
+		for (int i = Math.max(0, end - 8); i < end; i++) {
+			word = (word << 8) | (digest[i] & 0xFF);
+		}
+		if (index == numberOfWords - 1) {
+			word &= topWordMask;
+		}
+		return word;
+	}
+
+	/**
+	 * SHA-1 of the ISO-8859-1 encoded string, written into the digest buffer
+	 * of the current thread
+	 */
+	private static byte[] sha1(String stringToHash) {
+		Sha1Buffers buffers = SHA1_BUFFERS.get();
+		int length = stringToHash.length();
+		if (buffers.input.length < length) {
+			buffers.input = new byte[Math.max(length,
+					2 * buffers.input.length)];
+		}
+		for (int i = 0; i < length; i++) {
+			char c = stringToHash.charAt(i);
+			buffers.input[i] = c <= 0xFF ? (byte) c : (byte) '?';
+		}
+		buffers.digest.update(buffers.input, 0, length);
 		try {
-			md = MessageDigest.getInstance("SHA-1");
-			md.update(stringToHash.getBytes("iso-8859-1"), 0,
-					stringToHash.length());
-			sha1hash = md.digest();
-		} catch (NoSuchAlgorithmException e) {
-			System.err.println("NoSuchAlgorithmException");
-			e.printStackTrace();
-		} catch (UnsupportedEncodingException e) {
-			System.err.println("UnsupportedEncodingException");
-			e.printStackTrace();
-		}
-		BigInteger value = new BigInteger(1, sha1hash);
-
-		// Make sure the value does not have more than numberOfBits bits
-		value = value.mod(numberOfIDs);
-		return createID(value);
+			buffers.digest.digest(buffers.output, 0, buffers.output.length);
+		} catch (DigestException e) {
+			throw new AssertionError(e);
+		}
+		return buffers.output;
+	}
+
+	/**
+	 * Digest and buffers of one thread
+	 */
+	private static class Sha1Buffers {
+
+		private final MessageDigest digest;
+
+		private byte[] input = new byte[64];
+
+		private final byte[] output;
+
+		public Sha1Buffers() {
+			try {
+				digest = MessageDigest.getInstance("SHA-1");
+			} catch (NoSuchAlgorithmException e) {
+				throw new AssertionError(e);
+			}
+			output = new byte[digest.getDigestLength()];
+		}
+
 	}
 
 	@Override
@@ -231,32 +389,269 @@ public class DefaultIDSpace implements IDSpace {
 				.min(getCounterClockwiseDistance(a, b));
 	}
 	
+	/**
+	 * The i-th digit of the ID with b bits per digit, 0 is the least
+	 * significant one. Digits that do not fit into an int are returned as -1.
+	 * Allocation-free for digits of up to 63 bits and fixed-width IDs.
+	 * 
+	 * @param id
+	 * @param i
+	 * @param b
+	 * @return
+	 */
 	public int getDigit(OverlayNodeID id, int i, int b) {
-		BigInteger rId;
-
-		// Shift the ID by i*b bits
+		if (b >= 64) {
+			BigInteger rId = id.getBigInteger().shiftRight(i * b)
+					.mod(TWO.pow(b));
+			if (rId.compareTo(BigInteger.valueOf(Integer.MAX_VALUE)) <= 0)
+				return rId.intValue();
+			else
+				return -1;
+		}
 		int shift = i * b;
-		rId = id.getBigInteger().shiftRight(shift);
-
-		// Remove the leading digits by doing a mod 2^b
-		rId = rId.mod(TWO.pow(b));
-
-		// Check whether we can return the result as an integer or not
-		if (rId.compareTo(BigInteger.valueOf(Integer.MAX_VALUE)) <= 0)
-			return rId.intValue();
+		int index = shift >>> 6;
+		int offset = shift & 63;
+		long digit = id.getWord(index) >>> offset;
+		if (offset + b > 64) {
+			digit |= id.getWord(index + 1) << (64 - offset);
+		}
+		digit &= (1L << b) - 1;
+		if (digit <= Integer.MAX_VALUE)
+			return (int) digit;
 		else
 			return -1;
 	}
 
+	/**
+	 * Index of the most significant digit (b bits per digit) in which both
+	 * IDs differ, or -1 if all digits are equal.
+	 * 
+	 * @param id
+	 * @param otherId
+	 * @param b
+	 * @return
+	 */
 	public int indexOfMSDD(OverlayNodeID id, OverlayNodeID otherId, int b) {
-		// Compare the digits, starting with the most significant bit
-		for (int i = (getNumberOfBits() / b) - 1; i >= 0; i--) {
-			if (getDigit(id, i, b) != getDigit(otherId, i, b))
-				return i;
+		int bit = highestDifferentBit(id, otherId, (getNumberOfBits() / b) * b);
+		if (bit < 0) {
+			return -1;
+		}
+		return bit / b;
+	}
+
+	/**
+	 * Number of leading bits both IDs have in common (numberOfBits, if they
+	 * are equal)
+	 * 
+	 * @param a
+	 * @param b
+	 * @return
+	 */
+	public int getCommonPrefixLength(OverlayNodeID a, OverlayNodeID b) {
+		return numberOfBits - 1 - highestDifferentBit(a, b, numberOfBits);
+	}
+
+	/**
+	 * Position of the most significant bit below <code>bits</code> in which
+	 * both IDs differ, or -1
+	 */
+	private int highestDifferentBit(OverlayNodeID a, OverlayNodeID b, int bits) {
+		for (int index = (bits + 63) / 64 - 1; index >= 0; index--) {
+			long diff = a.getWord(index) ^ b.getWord(index);
+			int valid = bits - 64 * index;
+			if (valid < 64) {
+				diff &= (1L << valid) - 1;
+			}
+			if (diff != 0) {
+				return 64 * index + 63 - Long.numberOfLeadingZeros(diff);
+			}
 		}
 		return -1;
 	}
 
+	/*
+	 * Allocation-free distances: the results are written into a reusable
+	 * holder of getNumberOfWords() longs, least significant word first (see
+	 * createDistanceHolder()).
+	 */
+
+	/**
+	 * Number of 64 bit words of an ID or distance
+	 * 
+	 * @return
+	 */
+	public int getNumberOfWords() {
+		return numberOfWords;
+	}
+
+	/**
+	 * A holder for the distance methods
+	 * 
+	 * @return
+	 */
+	public long[] createDistanceHolder() {
+		return new long[numberOfWords];
+	}
+
+	/**
+	 * XOR distance of the IDs (Kademlia)
+	 * 
+	 * @param a
+	 * @param b
+	 * @param distance
+	 *            holder for the result
+	 * @return the holder
+	 */
+	public long[] getXorDistance(OverlayNodeID a, OverlayNodeID b,
+			long[] distance) {
+		for (int i = 0; i < numberOfWords; i++) {
+			distance[i] = a.getWord(i) ^ b.getWord(i);
+		}
+		distance[numberOfWords - 1] &= topWordMask;
+		return distance;
+	}
+
+	/**
+	 * Compares the XOR distances of a and b to the target without creating
+	 * them.
+	 * 
+	 * @param target
+	 * @param a
+	 * @param b
+	 * @return negative, if a is closer to the target than b, 0 if both are
+	 *         equally close (that is, a equals b)
+	 */
+	public int compareXorDistance(OverlayNodeID target, OverlayNodeID a,
+			OverlayNodeID b) {
+		for (int i = numberOfWords - 1; i >= 0; i--) {
+			long t = target.getWord(i);
+			long da = t ^ a.getWord(i);
+			long db = t ^ b.getWord(i);
+			if (i == numberOfWords - 1) {
+				da &= topWordMask;
+				db &= topWordMask;
+			}
+			if (da != db) {
+				return OverlayNodeID.compareWords(da, db);
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Clockwise distance from a to b, same as
+	 * {@link #getClockwiseDistance(OverlayNodeID, OverlayNodeID)}
+	 * 
+	 * @param a
+	 * @param b
+	 * @param distance
+	 *            holder for the result
+	 * @return the holder
+	 */
+	public long[] getClockwiseDistance(OverlayNodeID a, OverlayNodeID b,
+			long[] distance) {
+		// b - a mod 2^numberOfBits, word by word with borrow
+		long borrow = 0;
+		for (int i = 0; i < numberOfWords; i++) {
+			long x = b.getWord(i);
+			long y = a.getWord(i);
+			long d = x - y - borrow;
+			borrow = ((~x & y) | (~(x ^ y) & d)) >>> 63;
+			distance[i] = d;
+		}
+		distance[numberOfWords - 1] &= topWordMask;
+		return distance;
+	}
+
+	/**
+	 * Counter-clockwise distance from a to b, same as
+	 * {@link #getCounterClockwiseDistance(OverlayNodeID, OverlayNodeID)}
+	 * 
+	 * @param a
+	 * @param b
+	 * @param distance
+	 *            holder for the result
+	 * @return the holder
+	 */
+	public long[] getCounterClockwiseDistance(OverlayNodeID a,
+			OverlayNodeID b, long[] distance) {
+		return getClockwiseDistance(b, a, distance);
+	}
+
+	/**
+	 * Shorter distance on the ring, same as
+	 * {@link #getMinDistance(OverlayNodeID, OverlayNodeID)}
+	 * 
+	 * @param a
+	 * @param b
+	 * @param distance
+	 *            holder for the result
+	 * @return the holder
+	 */
+	public long[] getMinDistance(OverlayNodeID a, OverlayNodeID b,
+			long[] distance) {
+		getClockwiseDistance(a, b, distance);
+		if (isMoreThanHalf(distance)) {
+			// the counter-clockwise distance is 2^numberOfBits - d
+			long carry = 1;
+			for (int i = 0; i < numberOfWords; i++) {
+				long d = ~distance[i] + carry;
+				carry = (carry == 1 && d == 0) ? 1 : 0;
+				distance[i] = d;
+			}
+			distance[numberOfWords - 1] &= topWordMask;
+		}
+		return distance;
+	}
+
+	private boolean isMoreThanHalf(long[] distance) {
+		int top = numberOfWords - 1;
+		long half = 1L << ((numberOfBits - 1) & 63);
+		if ((distance[top] & half) == 0) {
+			return false;
+		}
+		if ((distance[top] & ~half) != 0) {
+			return true;
+		}
+		for (int i = 0; i < top; i++) {
+			if (distance[i] != 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Unsigned comparison of two distances
+	 * 
+	 * @param a
+	 * @param b
+	 * @return
+	 */
+	public int compareDistances(long[] a, long[] b) {
+		for (int i = numberOfWords - 1; i >= 0; i--) {
+			if (a[i] != b[i]) {
+				return OverlayNodeID.compareWords(a[i], b[i]);
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * The distance as (rounded) double
+	 * 
+	 * @param distance
+	 * @return
+	 */
+	public double toDouble(long[] distance) {
+		double value = 0;
+		for (int i = numberOfWords - 1; i >= 0; i--) {
+			long word = distance[i];
+			value = value * 0x1p64 + (word >>> 1) * 2.0 + (word & 1);
+		}
+		return value;
+	}
+
 	@Override
 	public boolean equals(Object obj) {
 		if (obj instanceof IDSpace) {
@@ -33,6 +33,13 @@ import de.tudarmstadt.maki.simonstrator.api.common.UniqueID;
  * functionality. All Methods calculating something on IDs are implemented in
  * the IDSpace!
  * 
+ * The only subclasses are the fixed-width representations
+ * {@link OverlayNodeID64}, {@link OverlayNodeID128} and
+ * {@link OverlayNodeID256}, which store the ID in long fields and create the
+ * BigInteger only on demand. The {@link DefaultIDSpace} picks the smallest
+ * one that fits. IDs of different representations are still equal and have
+ * the same hash code, if they have the same numerical value.
+ * 
  * @author Bjoern Richerzhagen
  * @version 1.0, 06/18/2011
  */
@@ -41,21 +48,14 @@ public class OverlayNodeID implements UniqueID {
 	private static final long serialVersionUID = 1L;
 
 	/**
-	 * BigInt-Representation of this ID
+	 * BigInt-Representation of this ID (created lazily by the fixed-width
+	 * subclasses)
 	 */
 	private BigInteger bigInt;
 
-	/**
-	 * Performance boost on comparisons for small IDSpaces?
-	 */
-	private transient boolean hasLongRepresentation;
-
-	private transient long longRepresentation;
-
 	private int numberOfBits;
 
-	@SuppressWarnings("unused")
-	private OverlayNodeID() {
+	protected OverlayNodeID() {
 		// for Kryo
 	}
 
@@ -78,13 +78,16 @@ public class OverlayNodeID implements UniqueID {
 	 */
 	public OverlayNodeID(int numberOfBits, BigInteger value) {
 		this.bigInt = value;
-		if (numberOfBits < 64) {
-			this.hasLongRepresentation = true;
-			this.longRepresentation = value.longValue();
-		} else {
-			this.hasLongRepresentation = false;
-			this.longRepresentation = Long.MIN_VALUE;
-		}
+		this.numberOfBits = numberOfBits;
+	}
+
+	/**
+	 * Constructor for the fixed-width subclasses, the BigInteger is created
+	 * via {@link #toBigInteger()} on demand, which they override.
+	 * 
+	 * @param numberOfBits
+	 */
+	protected OverlayNodeID(int numberOfBits) {
 		this.numberOfBits = numberOfBits;
 	}
 
@@ -93,37 +96,67 @@ public class OverlayNodeID implements UniqueID {
 		return numberOfBits;
 	}
 
+	public int getNumberOfBits() {
+		return numberOfBits;
+	}
+
 	@Override
 	public int compareTo(UniqueID uid) {
 		if (uid instanceof OverlayNodeID) {
-			OverlayNodeID o = (OverlayNodeID) uid;
-			if (hasLongRepresentation && o.hasLongRepresentation) {
-				return Long.compare(longRepresentation, o.longRepresentation);
-			}
-			return this.bigInt.compareTo(o.bigInt);
+			return getBigInteger().compareTo(
+					((OverlayNodeID) uid).getBigInteger());
 		}
-		if (hasLongRepresentation) {
-			return Long.compare(longRepresentation, uid.value());
+		if (numberOfBits < 64) {
+			return Long.compare(value(), uid.value());
 		} else {
-			return this.bigInt.compareTo(BigInteger.valueOf(uid.value()));
+			return getBigInteger().compareTo(BigInteger.valueOf(uid.value()));
 		}
 	}
 
 	public BigInteger getBigInteger() {
+		if (bigInt == null) {
+			bigInt = toBigInteger();
+		}
+		return bigInt;
+	}
+
+	/**
+	 * The 64 bit word of the (non-negative) ID with the given index, 0 is the
+	 * least significant one. Allocation-free for the fixed-width subclasses.
+	 * 
+	 * @param index
+	 * @return
+	 */
+	public long getWord(int index) {
+		return getBigInteger().shiftRight(64 * index).longValue();
+	}
+
+	/**
+	 * Creates the BigInteger of a fixed-width representation, which has to
+	 * override this method. IDs that were created from a BigInteger already
+	 * hold it.
+	 * 
+	 * @return
+	 */
+	protected BigInteger toBigInteger() {
 		return bigInt;
 	}
 
+	/**
+	 * The ID as long, if the ID space has less than 64 bits, and
+	 * {@link Long#MIN_VALUE} otherwise
+	 */
 	@Override
 	public long value() {
-		return longRepresentation;
+		if (numberOfBits < 64) {
+			return getBigInteger().longValue();
+		}
+		return Long.MIN_VALUE;
 	}
 
 	@Override
 	public String valueAsString() {
-		if (hasLongRepresentation) {
-			return String.valueOf(longRepresentation);
-		}
-		return bigInt.toString();
+		return toString();
 	}
 
 	@Override
@@ -133,20 +166,17 @@ public class OverlayNodeID implements UniqueID {
 		 */
 		if (obj instanceof OverlayNodeID) {
 			OverlayNodeID id = (OverlayNodeID) obj;
-			if (this.hasLongRepresentation && id.hasLongRepresentation) {
-				return this.longRepresentation == id.longRepresentation;
-			}
-			return bigInt.equals(id.getBigInteger());
+			return getBigInteger().equals(id.getBigInteger());
 		}
 		return false;
 	}
 
 	@Override
 	public int hashCode() {
-		if (hasLongRepresentation) {
-			return Long.valueOf(longRepresentation).hashCode();
+		if (numberOfBits < 64) {
+			return hashCode(value());
 		}
-		return bigInt.hashCode();
+		return getBigInteger().hashCode();
 	}
 
 	@Override
@@ -155,7 +185,60 @@ public class OverlayNodeID implements UniqueID {
 		 * As some analyzers rely on a numeric value for parsing, we just return
 		 * the value and no additional information in this implementation.
 		 */
-		return this.bigInt.toString();
+		return getBigInteger().toString();
+	}
+
+	/**
+	 * Hash code of IDs below 64 bit (same as {@link Long#hashCode()})
+	 * 
+	 * @param value
+	 * @return
+	 */
+	protected static int hashCode(long value) {
+		return (int) (value ^ (value >>> 32));
+	}
+
+	/**
+	 * Adds the given 64 bit of a non-negative value to the hash code, words
+	 * have to be passed starting with the most significant one. Yields the
+	 * same result as {@link BigInteger#hashCode()}, as leading zeros do not
+	 * change the hash.
+	 * 
+	 * @param hash
+	 * @param word
+	 * @return
+	 */
+	protected static int hashWord(int hash, long word) {
+		hash = 31 * hash + (int) (word >>> 32);
+		return 31 * hash + (int) word;
+	}
+
+	/**
+	 * Unsigned comparison of two words
+	 * 
+	 * @param a
+	 * @param b
+	 * @return
+	 */
+	protected static int compareWords(long a, long b) {
+		return Long.compare(a ^ Long.MIN_VALUE, b ^ Long.MIN_VALUE);
+	}
+
+	/**
+	 * Non-negative BigInteger of the given words, most significant first
+	 * 
+	 * @param words
+	 * @return
+	 */
+	protected static BigInteger fromWords(long... words) {
+		byte[] bytes = new byte[words.length * 8 + 1];
+		for (int i = 0; i < words.length; i++) {
+			long word = words[i];
+			for (int j = 0; j < 8; j++) {
+				bytes[1 + i * 8 + j] = (byte) (word >>> (56 - 8 * j));
+			}
+		}
+		return new BigInteger(bytes);
 	}
 
 }
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2005-2010 KOM – Multimedia Communications Lab
+ *
+ * This file is part of PeerfactSim.KOM.
+ * 
+ * PeerfactSim.KOM is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ * 
+ * PeerfactSim.KOM is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with PeerfactSim.KOM.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package de.tudarmstadt.maki.simonstrator.overlay;
+
+import java.math.BigInteger;
+
+import de.tudarmstadt.maki.simonstrator.api.common.UniqueID;
+
+/**
+ * {@link OverlayNodeID} of an ID space with 65 to 128 bits, stored in two
+ * longs (unsigned).
+ */
+public final class OverlayNodeID128 extends OverlayNodeID {
+
+	private static final long serialVersionUID = 1L;
+
+	private long high;
+
+	private long low;
+
+	@SuppressWarnings("unused")
+	private OverlayNodeID128() {
+		// for Kryo
+	}
+
+	/**
+	 * Constructor, <b>only to be used by an IDSpace</b>!
+	 * 
+	 * @param numberOfBits
+	 *            at most 128
+	 * @param high
+	 *            the upper 64 bit
+	 * @param low
+	 *            the lower 64 bit
+	 */
+	public OverlayNodeID128(int numberOfBits, long high, long low) {
+		super(numberOfBits);
+		this.high = high;
+		this.low = low;
+	}
+
+	@Override
+	public int compareTo(UniqueID uid) {
+		if (uid instanceof OverlayNodeID128) {
+			OverlayNodeID128 o = (OverlayNodeID128) uid;
+			if (high != o.high) {
+				return compareWords(high, o.high);
+			}
+			return compareWords(low, o.low);
+		}
+		return super.compareTo(uid);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj instanceof OverlayNodeID128) {
+			OverlayNodeID128 o = (OverlayNodeID128) obj;
+			return low == o.low && high == o.high;
+		}
+		return super.equals(obj);
+	}
+
+	@Override
+	public int hashCode() {
+		return hashWord(hashWord(0, high), low);
+	}
+
+	@Override
+	public long getWord(int index) {
+		switch (index) {
+		case 0:
+			return low;
+		case 1:
+			return high;
+		default:
+			return 0;
+		}
+	}
+
+	@Override
+	protected BigInteger toBigInteger() {
+		return fromWords(high, low);
+	}
+
+}
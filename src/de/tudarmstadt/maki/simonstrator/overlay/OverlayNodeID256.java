@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2005-2010 KOM – Multimedia Communications Lab
+ *
+ * This file is part of PeerfactSim.KOM.
+ * 
+ * PeerfactSim.KOM is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ * 
+ * PeerfactSim.KOM is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with PeerfactSim.KOM.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package de.tudarmstadt.maki.simonstrator.overlay;
+
+import java.math.BigInteger;
+
+import de.tudarmstadt.maki.simonstrator.api.common.UniqueID;
+
+/**
+ * {@link OverlayNodeID} of an ID space with 129 to 256 bits (e.g., 160 bit
+ * SHA-1 IDs), stored in four longs (unsigned). Word 3 is the most
+ * significant one.
+ */
+public final class OverlayNodeID256 extends OverlayNodeID {
+
+	private static final long serialVersionUID = 1L;
+
+	private long word3;
+
+	private long word2;
+
+	private long word1;
+
+	private long word0;
+
+	@SuppressWarnings("unused")
+	private OverlayNodeID256() {
+		// for Kryo
+	}
+
+	/**
+	 * Constructor, <b>only to be used by an IDSpace</b>!
+	 * 
+	 * @param numberOfBits
+	 *            at most 256
+	 * @param word3
+	 *            most significant 64 bit
+	 * @param word2
+	 * @param word1
+	 * @param word0
+	 *            least significant 64 bit
+	 */
+	public OverlayNodeID256(int numberOfBits, long word3, long word2,
+			long word1, long word0) {
+		super(numberOfBits);
+		this.word3 = word3;
+		this.word2 = word2;
+		this.word1 = word1;
+		this.word0 = word0;
+	}
+
+	@Override
+	public int compareTo(UniqueID uid) {
+		if (uid instanceof OverlayNodeID256) {
+			OverlayNodeID256 o = (OverlayNodeID256) uid;
+			if (word3 != o.word3) {
+				return compareWords(word3, o.word3);
+			}
+			if (word2 != o.word2) {
+				return compareWords(word2, o.word2);
+			}
+			if (word1 != o.word1) {
+				return compareWords(word1, o.word1);
+			}
+			return compareWords(word0, o.word0);
+		}
+		return super.compareTo(uid);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj instanceof OverlayNodeID256) {
+			OverlayNodeID256 o = (OverlayNodeID256) obj;
+			return word0 == o.word0 && word1 == o.word1 && word2 == o.word2
+					&& word3 == o.word3;
+		}
+		return super.equals(obj);
+	}
+
+	@Override
+	public int hashCode() {
+		return hashWord(hashWord(hashWord(hashWord(0, word3), word2), word1),
+				word0);
+	}
+
+	@Override
+	public long getWord(int index) {
+		switch (index) {
+		case 0:
+			return word0;
+		case 1:
+			return word1;
+		case 2:
+			return word2;
+		case 3:
+			return word3;
+		default:
+			return 0;
+		}
+	}
+
+	@Override
+	protected BigInteger toBigInteger() {
+		return fromWords(word3, word2, word1, word0);
+	}
+
+}
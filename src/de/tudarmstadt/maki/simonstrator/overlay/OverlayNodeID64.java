@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2005-2010 KOM – Multimedia Communications Lab
+ *
+ * This file is part of PeerfactSim.KOM.
+ * 
+ * PeerfactSim.KOM is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ * 
+ * PeerfactSim.KOM is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with PeerfactSim.KOM.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package de.tudarmstadt.maki.simonstrator.overlay;
+
+import java.math.BigInteger;
+
+import de.tudarmstadt.maki.simonstrator.api.common.UniqueID;
+
+/**
+ * {@link OverlayNodeID} of an ID space with up to 64 bits, stored in a single
+ * long (unsigned). Comparisons of two such IDs do not touch BigIntegers.
+ */
+public final class OverlayNodeID64 extends OverlayNodeID {
+
+	private static final long serialVersionUID = 1L;
+
+	private long value;
+
+	@SuppressWarnings("unused")
+	private OverlayNodeID64() {
+		// for Kryo
+	}
+
+	/**
+	 * Constructor, <b>only to be used by an IDSpace</b>!
+	 * 
+	 * @param numberOfBits
+	 *            at most 64
+	 * @param value
+	 *            unsigned, non-negative below 64 bits
+	 */
+	public OverlayNodeID64(int numberOfBits, long value) {
+		super(numberOfBits);
+		this.value = value;
+	}
+
+	@Override
+	public int compareTo(UniqueID uid) {
+		if (uid instanceof OverlayNodeID64) {
+			return compareWords(value, ((OverlayNodeID64) uid).value);
+		}
+		return super.compareTo(uid);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj instanceof OverlayNodeID64) {
+			return value == ((OverlayNodeID64) obj).value;
+		}
+		return super.equals(obj);
+	}
+
+	@Override
+	public int hashCode() {
+		if (getNumberOfBits() < 64) {
+			return hashCode(value);
+		}
+		return hashWord(0, value);
+	}
+
+	@Override
+	public long value() {
+		if (getNumberOfBits() < 64) {
+			return value;
+		}
+		return Long.MIN_VALUE;
+	}
+
+	@Override
+	public long getWord(int index) {
+		return index == 0 ? value : 0;
+	}
+
+	@Override
+	protected BigInteger toBigInteger() {
+		if (value >= 0) {
+			return BigInteger.valueOf(value);
+		}
+		return fromWords(value);
+	}
+
+	@Override
+	public String toString() {
+		if (value >= 0) {
+			return Long.toString(value);
+		}
+		return super.toString();
+	}
+
+}
@@ -0,0 +1,270 @@
+package de.tudarmstadt.maki.simonstrator.overlay.flooding;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import de.tudarmstadt.maki.simonstrator.api.Event;
+import de.tudarmstadt.maki.simonstrator.api.EventHandler;
+import de.tudarmstadt.maki.simonstrator.api.Message;
+import de.tudarmstadt.maki.simonstrator.api.Monitor;
+import de.tudarmstadt.maki.simonstrator.api.Monitor.Level;
+import de.tudarmstadt.maki.simonstrator.api.Randoms;
+import de.tudarmstadt.maki.simonstrator.api.Time;
+import de.tudarmstadt.maki.simonstrator.api.component.transport.TransInfo;
+import de.tudarmstadt.maki.simonstrator.api.component.transport.TransMessageCallback;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingSettings.Params;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingSettings.Times;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.messages.ConnectPeersMessage;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.messages.ConnectPeersMessageAnswer;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.messages.DisconnectMessage;
+
+/**
+ * Establishes the outgoing connections of a {@link FloodingNode}. Instead of
+ * one request at a time, up to {@link Params#CONNECT_WINDOW} connect requests
+ * are in flight concurrently. Requests time out after
+ * {@link Times#MSG_TIMEOUT}, rejects lead to a jittered exponential backoff
+ * before new requests are sent, and acceptances that arrive after all
+ * outgoing slots are filled are cancelled with a {@link DisconnectMessage}.
+ */
+public class ConnectionManager implements TransMessageCallback, EventHandler {
+
+	private final FloodingNode node;
+
+	private final Random random = Randoms.getRandom(ConnectionManager.class);
+
+	/**
+	 * In-flight connect requests by communication ID
+	 */
+	private final Map<Integer, FloodingContact> pending = new HashMap<Integer, FloodingContact>();
+
+	/**
+	 * Neighbors we established the connection to (the others connected to us)
+	 */
+	private final Set<FloodingContact> outgoing = new HashSet<FloodingContact>();
+
+	/**
+	 * In-flight requests for long-range links of the
+	 * {@link SmallWorldRewiring}
+	 */
+	private final Set<FloodingContact> pendingLongRange = new HashSet<FloodingContact>();
+
+	/**
+	 * Number of rejects since the last accepted request
+	 */
+	private int consecutiveRejects = 0;
+
+	/**
+	 * No new requests before this time
+	 */
+	private long backoffUntil = 0;
+
+	private boolean backoffScheduled = false;
+
+	public ConnectionManager(FloodingNode node) {
+		this.node = node;
+	}
+
+	/**
+	 * Sends new connect requests, as long as there are free outgoing slots,
+	 * the window is not exhausted and we are not backing off. Up to twice as
+	 * many requests as free slots are sent to compensate for rejects.
+	 */
+	public void fillWindow() {
+		if (node.establishOutgoingConnections == null || !node.isPresent()) {
+			return;
+		}
+		long now = Time.getCurrentTime();
+		if (now < backoffUntil) {
+			if (!backoffScheduled) {
+				backoffScheduled = true;
+				Event.scheduleWithDelay(backoffUntil - now, this, null, 0);
+			}
+			return;
+		}
+		int freeSlots = node.establishOutgoingConnections.availablePermits();
+		int limit = Math.min(
+				node.getSettings().getParam(Params.CONNECT_WINDOW),
+				2 * freeSlots);
+		while (pending.size() < limit) {
+			FloodingContact candidate = nextCandidate();
+			if (candidate == null) {
+				return;
+			}
+			sendRequest(candidate);
+		}
+	}
+
+	/**
+	 * Sends a connect request to the given contact, regardless of the window
+	 * 
+	 * @param candidate
+	 * @param longRange
+	 *            the {@link SmallWorldRewiring} is informed about the outcome
+	 * @return false, if we are connected or a request is already in flight
+	 */
+	public boolean connectTo(FloodingContact candidate, boolean longRange) {
+		if (node.getConnectedNeighbors().contains(candidate)
+				|| pending.containsValue(candidate)) {
+			return false;
+		}
+		if (longRange) {
+			pendingLongRange.add(candidate);
+		}
+		sendRequest(candidate);
+		return true;
+	}
+
+	private void sendRequest(FloodingContact candidate) {
+		ConnectPeersMessage request = node.createConnectRequest();
+		int commId = node.getTransport().sendAndWait(request,
+				candidate.getNetID(), FloodingNodeFactory.DEFAULT_NODE_PORT,
+				this, node.getSettings().getTime(Times.MSG_TIMEOUT));
+		pending.put(commId, candidate);
+	}
+
+	/**
+	 * Potential neighbor that is neither connected nor already asked: random
+	 * or, with small-world rewiring, close to us on the ring
+	 *
+	 * @return the candidate or null
+	 */
+	private FloodingContact nextCandidate() {
+		SmallWorldRewiring rewiring = node.getSmallWorldRewiring();
+		FloodingContact candidate;
+		do {
+			if (rewiring != null) {
+				candidate = rewiring.pickLocal(node.getPotentialNeighbors());
+			} else {
+				candidate = node.getPotentialNeighbors().removeRandom(random);
+			}
+		} while (candidate != null
+				&& (node.getConnectedNeighbors().contains(candidate) || pending
+						.containsValue(candidate)));
+		return candidate;
+	}
+
+	@Override
+	public void receive(Message msg, TransInfo senderInfo, int commId) {
+		FloodingContact contact = pending.remove(commId);
+		if (contact == null) {
+			return;
+		}
+		boolean longRange = pendingLongRange.remove(contact);
+		ConnectPeersMessageAnswer answer = (ConnectPeersMessageAnswer) msg;
+		if (answer.isAccept()) {
+			consecutiveRejects = 0;
+			FloodingContact neighbor = answer.getSenderContact();
+			boolean connected = node.getConnectedNeighbors().contains(neighbor);
+			if (longRange) {
+				// frees the slot of the replaced link, if accepted
+				node.getSmallWorldRewiring().longRangeRequestDone(contact,
+						!connected);
+			}
+			if (connected) {
+				/*
+				 * Our requests crossed and both were accepted: each side
+				 * already holds the link in an incoming slot, so no outgoing
+				 * slot is taken. A DisconnectMessage would make the remote
+				 * node drop the very same link.
+				 */
+			} else if (node.establishOutgoingConnections.tryAcquire()) {
+				node.establishOutgoingConnectionsAccepted.release();
+				outgoing.add(neighbor);
+				node.addConnectedNeighbor(neighbor);
+				if (longRange) {
+					node.getSmallWorldRewiring().linkEstablished(neighbor);
+				}
+			} else {
+				// Surplus acceptance, the remote slot is freed again
+				node.sendToNode(new DisconnectMessage((FloodingContact) node
+						.getLocalOverlayContact()), senderInfo.getNetId());
+			}
+		} else {
+			consecutiveRejects++;
+			backoffUntil = Time.getCurrentTime() + getBackoff();
+			if (longRange) {
+				node.getSmallWorldRewiring().longRangeRequestDone(contact,
+						false);
+			}
+		}
+		fillWindow();
+	}
+
+	@Override
+	public void messageTimeoutOccured(int commId) {
+		FloodingContact contact = pending.remove(commId);
+		if (contact != null) {
+			if (pendingLongRange.remove(contact)) {
+				node.getSmallWorldRewiring().longRangeRequestDone(contact,
+						false);
+			}
+			Monitor.log(ConnectionManager.class, Level.DEBUG, node
+					+ ": connect request to " + contact + " timed out.");
+			fillWindow();
+		}
+	}
+
+	@Override
+	public void eventOccurred(Object content, int type) {
+		backoffScheduled = false;
+		fillWindow();
+	}
+
+	/**
+	 * Jittered exponential backoff after the given number of consecutive
+	 * rejects, capped by the maintenance interval
+	 *
+	 * @return
+	 */
+	private long getBackoff() {
+		long base = node.getSettings().getTime(Times.CONNECT_BACKOFF);
+		long max = node.getSettings().getTime(Times.MAINTENANCE_INTERVAL);
+		long backoff = base << Math.min(consecutiveRejects - 1, 16);
+		backoff = Math.min(backoff, max);
+		return (long) (backoff * (0.5 + random.nextDouble()));
+	}
+
+	/**
+	 * Removes the connection to the given neighbor and returns the slot to
+	 * the connection budget of the respective direction.
+	 *
+	 * @param contact
+	 * @return true, if we were connected to the contact
+	 */
+	public boolean releaseConnection(FloodingContact contact) {
+		if (!node.removeConnectedNeighbor(contact)) {
+			return false;
+		}
+		if (outgoing.remove(contact)) {
+			node.establishOutgoingConnectionsAccepted.tryAcquire();
+			node.establishOutgoingConnections.release();
+		} else {
+			node.acceptIngoingConnectionsAccepted.tryAcquire();
+			node.acceptIngoingConnections.release();
+		}
+		return true;
+	}
+
+	/**
+	 * True, if we established the connection to the given neighbor
+	 *
+	 * @param contact
+	 * @return
+	 */
+	public boolean isOutgoing(FloodingContact contact) {
+		return outgoing.contains(contact);
+	}
+
+	/**
+	 * Number of connect requests currently in flight
+	 *
+	 * @return
+	 */
+	public int getNumPending() {
+		return pending.size();
+	}
+
+}
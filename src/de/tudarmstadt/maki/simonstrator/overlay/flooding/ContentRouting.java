@@ -0,0 +1,232 @@
+package de.tudarmstadt.maki.simonstrator.overlay.flooding;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingSettings.Params;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.messages.BloomUpdateMessage;
+import de.tudarmstadt.maki.simonstrator.overlay.util.AttenuatedBloomFilter;
+
+/**
+ * Guides queries with attenuated Bloom filters of the content of the
+ * connected neighbors, enabled by {@link Params#BLOOM_FILTER_BITS}.
+ *
+ * Level 0 of the filter a node advertises contains its own content, level i
+ * the union of level i-1 of the filters received from its neighbors (up to
+ * {@link Params#BLOOM_FILTER_DEPTH} levels). The filters are sent with each
+ * maintenance, as deltas of the words that changed since the last update to
+ * the same neighbor. A neighbor that detects a lost update requests the full
+ * filter with its own next update.
+ *
+ * A query with TTL t is forwarded to the neighbors whose filter matches the
+ * key within the first t levels, and to neighbors we have no filter of yet.
+ * If no filter matches and the TTL exceeds the depth, the content might be
+ * beyond the horizon of the filters and the query is forwarded to all
+ * neighbors.
+ */
+public class ContentRouting {
+
+	private final FloodingNode node;
+
+	/**
+	 * The filter we advertise, rebuilt with each update
+	 */
+	private final AttenuatedBloomFilter advertised;
+
+	private final Map<FloodingContact, NeighborState> neighbors = new HashMap<FloodingContact, NeighborState>();
+
+	/**
+	 * Filters exchanged with one neighbor
+	 */
+	private static class NeighborState {
+
+		/**
+		 * Filter advertised by the neighbor, null until the first full
+		 * update arrived
+		 */
+		private AttenuatedBloomFilter received;
+
+		private int receivedVersion = 0;
+
+		/**
+		 * We missed an update of the neighbor and request the full filter
+		 */
+		private boolean missedUpdate = false;
+
+		/**
+		 * Words of our last update to the neighbor, null before the first
+		 */
+		private long[] lastSent;
+
+		private int sentVersion = 0;
+
+		/**
+		 * The neighbor requested our full filter
+		 */
+		private boolean sendFull = false;
+
+	}
+
+	public ContentRouting(FloodingNode node) {
+		this.node = node;
+		FloodingSettings settings = node.getSettings();
+		this.advertised = new AttenuatedBloomFilter(
+				settings.getParam(Params.BLOOM_FILTER_DEPTH),
+				settings.getParam(Params.BLOOM_FILTER_BITS),
+				settings.getParam(Params.BLOOM_FILTER_HASHES));
+	}
+
+	public void neighborAdded(FloodingContact contact) {
+		neighbors.put(contact, new NeighborState());
+	}
+
+	public void neighborRemoved(FloodingContact contact) {
+		neighbors.remove(contact);
+	}
+
+	/**
+	 * Rebuilds our filter and sends the changes to all neighbors (called
+	 * with each maintenance)
+	 */
+	public void update() {
+		advertised.clear();
+		for (String key : node.getLocalContent()) {
+			advertised.add(0, key);
+		}
+		for (int level = 1; level < advertised.getDepth(); level++) {
+			for (NeighborState state : neighbors.values()) {
+				if (state.received != null) {
+					advertised.or(level, state.received, level - 1);
+				}
+			}
+		}
+		for (Entry<FloodingContact, NeighborState> entry : neighbors
+				.entrySet()) {
+			sendUpdate(entry.getKey(), entry.getValue());
+		}
+	}
+
+	private void sendUpdate(FloodingContact neighbor, NeighborState state) {
+		int numWords = advertised.getNumWords();
+		int[] indices = null;
+		long[] words;
+		if (state.lastSent == null || state.sendFull) {
+			words = new long[numWords];
+			for (int i = 0; i < numWords; i++) {
+				words[i] = advertised.getWord(i);
+			}
+		} else {
+			int changed = 0;
+			for (int i = 0; i < numWords; i++) {
+				if (advertised.getWord(i) != state.lastSent[i]) {
+					changed++;
+				}
+			}
+			if (changed == 0 && !state.missedUpdate) {
+				return;
+			}
+			if (changed * (8 + BloomUpdateMessage.INDEX_SIZE) < numWords * 8) {
+				indices = new int[changed];
+				words = new long[changed];
+				int n = 0;
+				for (int i = 0; i < numWords; i++) {
+					if (advertised.getWord(i) != state.lastSent[i]) {
+						indices[n] = i;
+						words[n] = advertised.getWord(i);
+						n++;
+					}
+				}
+			} else {
+				words = new long[numWords];
+				for (int i = 0; i < numWords; i++) {
+					words[i] = advertised.getWord(i);
+				}
+			}
+		}
+		if (state.lastSent == null) {
+			state.lastSent = new long[numWords];
+		}
+		for (int i = 0; i < numWords; i++) {
+			state.lastSent[i] = advertised.getWord(i);
+		}
+		state.sentVersion++;
+		state.sendFull = false;
+		node.sendToNode(new BloomUpdateMessage((FloodingContact) node
+				.getLocalOverlayContact(), state.sentVersion,
+				state.missedUpdate, indices, words), neighbor.getNetID());
+		state.missedUpdate = false;
+	}
+
+	public void updateReceived(BloomUpdateMessage msg) {
+		NeighborState state = neighbors.get(msg.getSenderContact());
+		if (state == null) {
+			return;
+		}
+		long[] words = msg.getWords();
+		if (msg.isFull()) {
+			if (state.received == null) {
+				state.received = new AttenuatedBloomFilter(advertised);
+			}
+			for (int i = 0; i < words.length; i++) {
+				state.received.setWord(i, words[i]);
+			}
+		} else if (state.received == null) {
+			state.missedUpdate = true;
+		} else {
+			if (msg.getVersion() != state.receivedVersion + 1) {
+				state.missedUpdate = true;
+			}
+			// changed words are applied anyway, they are up to date
+			int[] indices = msg.getIndices();
+			for (int i = 0; i < indices.length; i++) {
+				state.received.setWord(indices[i], words[i]);
+			}
+		}
+		state.receivedVersion = msg.getVersion();
+		if (msg.isRequestFull()) {
+			state.sendFull = true;
+		}
+	}
+
+	/**
+	 * The neighbors a query should be forwarded to
+	 *
+	 * @param candidates
+	 *            neighbors the query would be flooded to
+	 * @param key
+	 * @param ttl
+	 *            TTL of the forwarded query
+	 * @return
+	 */
+	public List<FloodingContact> route(List<FloodingContact> candidates,
+			String key, int ttl) {
+		List<FloodingContact> targets = new ArrayList<FloodingContact>(
+				candidates.size());
+		boolean matched = false;
+		for (FloodingContact candidate : candidates) {
+			NeighborState state = neighbors.get(candidate);
+			if (state == null || state.received == null) {
+				targets.add(candidate);
+			} else if (state.received.firstMatch(key, ttl) >= 0) {
+				targets.add(candidate);
+				matched = true;
+			}
+		}
+		if (!matched && ttl > advertised.getDepth()) {
+			return candidates;
+		}
+		return targets;
+	}
+
+	/**
+	 * Drops all filters (e.g., when going offline)
+	 */
+	public void clear() {
+		neighbors.clear();
+		advertised.clear();
+	}
+
+}
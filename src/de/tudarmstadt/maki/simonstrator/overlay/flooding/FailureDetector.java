@@ -0,0 +1,184 @@
+package de.tudarmstadt.maki.simonstrator.overlay.flooding;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import de.tudarmstadt.maki.simonstrator.api.Monitor;
+import de.tudarmstadt.maki.simonstrator.api.Monitor.Level;
+import de.tudarmstadt.maki.simonstrator.api.Time;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingSettings.Params;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingSettings.Times;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.messages.HeartbeatMessage;
+import de.tudarmstadt.maki.simonstrator.overlay.util.TimingWheel;
+import de.tudarmstadt.maki.simonstrator.overlay.util.TimingWheel.ExpirationHandler;
+
+/**
+ * Accrual failure detector for the connected neighbors of a
+ * {@link FloodingNode}. Every {@link Times#HEARTBEAT_INTERVAL} a
+ * {@link HeartbeatMessage} is sent to all neighbors, and every message
+ * received from a neighbor counts as heartbeat.
+ *
+ * For each neighbor the mean inter-arrival time is estimated (never below the
+ * heartbeat interval). Modeling inter-arrival times as exponentially
+ * distributed, the suspicion level after t without a message is phi = t /
+ * mean * log10(e), so a neighbor is suspected once t exceeds
+ * {@link Params#PHI_THRESHOLD} * ln(10) * mean. This deadline is kept in a
+ * {@link TimingWheel} that is advanced with the heartbeats, which are driven
+ * by the shared {@link TickScheduler} (no events per node or neighbor).
+ * Suspected neighbors are evicted via
+ * {@link ConnectionManager#releaseConnection(FloodingContact)}.
+ */
+public class FailureDetector implements TickScheduler.Task,
+		ExpirationHandler<FailureDetector.NeighborTimeout> {
+
+	/**
+	 * Number of slots of the timing wheel (in heartbeat intervals)
+	 */
+	private static final int WHEEL_SLOTS = 64;
+
+	/**
+	 * Weight of a new sample in the inter-arrival estimate
+	 */
+	private static final double ALPHA = 0.1;
+
+	private final FloodingNode node;
+
+	private final long interval;
+
+	private final double suspicionFactor;
+
+	private final Map<FloodingContact, NeighborTimeout> neighbors = new HashMap<FloodingContact, NeighborTimeout>();
+
+	private TimingWheel<NeighborTimeout> wheel;
+
+	/**
+	 * Liveness information of one neighbor
+	 */
+	static class NeighborTimeout extends TimingWheel.Timeout {
+
+		private final FloodingContact contact;
+
+		private long lastHeard;
+
+		private double meanInterval;
+
+		public NeighborTimeout(FloodingContact contact, long now,
+				double meanInterval) {
+			this.contact = contact;
+			this.lastHeard = now;
+			this.meanInterval = meanInterval;
+		}
+
+	}
+
+	public FailureDetector(FloodingNode node) {
+		this.node = node;
+		this.interval = node.getSettings().getTime(Times.HEARTBEAT_INTERVAL);
+		this.suspicionFactor = node.getSettings().getParam(
+				Params.PHI_THRESHOLD)
+				* Math.log(10);
+	}
+
+	/**
+	 * Starts sending heartbeats and monitoring the neighbors (if enabled)
+	 */
+	public void start() {
+		if (interval <= 0 || wheel != null) {
+			return;
+		}
+		long now = Time.getCurrentTime();
+		wheel = new TimingWheel<NeighborTimeout>(WHEEL_SLOTS, interval, now);
+		for (NeighborTimeout timeout : neighbors.values()) {
+			timeout.lastHeard = now;
+			wheel.schedule(timeout, getDeadline(timeout));
+		}
+		// random offset, so that the nodes do not send heartbeats in sync
+		TickScheduler.forInterval(interval).add(this, interval);
+	}
+
+	/**
+	 * Stops heartbeats and monitoring, e.g., when going offline
+	 */
+	public void stop() {
+		if (interval > 0) {
+			TickScheduler.forInterval(interval).remove(this);
+		}
+		wheel = null;
+		neighbors.clear();
+	}
+
+	@Override
+	public void tick() {
+		HeartbeatMessage heartbeat = new HeartbeatMessage(
+				(FloodingContact) node.getLocalOverlayContact());
+		for (FloodingContact neighbor : node.getConnectedNeighbors()) {
+			node.sendToNode(heartbeat, neighbor.getNetID());
+		}
+		wheel.advance(Time.getCurrentTime(), this);
+	}
+
+	/**
+	 * A neighbor was connected
+	 *
+	 * @param contact
+	 */
+	public void neighborAdded(FloodingContact contact) {
+		if (interval <= 0) {
+			return;
+		}
+		NeighborTimeout timeout = new NeighborTimeout(contact,
+				Time.getCurrentTime(), interval);
+		NeighborTimeout old = neighbors.put(contact, timeout);
+		if (wheel != null) {
+			if (old != null) {
+				wheel.cancel(old);
+			}
+			wheel.schedule(timeout, getDeadline(timeout));
+		}
+	}
+
+	/**
+	 * A neighbor was disconnected
+	 *
+	 * @param contact
+	 */
+	public void neighborRemoved(FloodingContact contact) {
+		NeighborTimeout timeout = neighbors.remove(contact);
+		if (timeout != null && wheel != null) {
+			wheel.cancel(timeout);
+		}
+	}
+
+	/**
+	 * We received a message of the given contact
+	 *
+	 * @param contact
+	 */
+	public void heard(FloodingContact contact) {
+		NeighborTimeout timeout = neighbors.get(contact);
+		if (timeout == null || wheel == null) {
+			return;
+		}
+		long now = Time.getCurrentTime();
+		double sample = now - timeout.lastHeard;
+		timeout.meanInterval = Math.max(interval, (1 - ALPHA)
+				* timeout.meanInterval + ALPHA * sample);
+		timeout.lastHeard = now;
+		wheel.schedule(timeout, getDeadline(timeout));
+	}
+
+	private long getDeadline(NeighborTimeout timeout) {
+		return timeout.lastHeard
+				+ (long) (suspicionFactor * timeout.meanInterval);
+	}
+
+	@Override
+	public void expired(NeighborTimeout timeout) {
+		Monitor.log(FailureDetector.class, Level.DEBUG, node + ": neighbor "
+				+ timeout.contact + " suspected, last heard at "
+				+ timeout.lastHeard);
+		neighbors.remove(timeout.contact);
+		node.getConnectionManager().releaseConnection(timeout.contact);
+	}
+
+}
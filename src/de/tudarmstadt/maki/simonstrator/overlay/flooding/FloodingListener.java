@@ -0,0 +1,25 @@
+package de.tudarmstadt.maki.simonstrator.overlay.flooding;
+
+import de.tudarmstadt.maki.simonstrator.api.Message;
+
+/**
+ * Application-Interface for data that is disseminated via
+ * {@link FloodingNode#flood(Message)}
+ */
+public interface FloodingListener {
+
+	/**
+	 * Called exactly once for each flood that reaches the local node
+	 * (duplicates are filtered by the overlay).
+	 *
+	 * @param origin
+	 *            the node that started the flood
+	 * @param payload
+	 *            Application-Layer payload
+	 * @param hopCount
+	 *            number of hops the flood traveled to reach this node
+	 */
+	public void receivedFlood(FloodingContact origin, Message payload,
+			int hopCount);
+
+}
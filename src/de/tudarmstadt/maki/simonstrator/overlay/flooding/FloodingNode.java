@@ -6,7 +6,11 @@ import java.util.concurrent.Semaphore;
 import de.tudarmstadt.maki.simonstrator.api.Host;
 import de.tudarmstadt.maki.simonstrator.api.Message;
 import de.tudarmstadt.maki.simonstrator.api.Monitor;
+import de.tudarmstadt.maki.simonstrator.api.Randoms;
+import de.tudarmstadt.maki.simonstrator.api.Time;
 import de.tudarmstadt.maki.simonstrator.api.Monitor.Level;
+import de.tudarmstadt.maki.simonstrator.api.component.core.MonitorComponent.AnalyzerNotAvailableException;
+import de.tudarmstadt.maki.simonstrator.api.component.network.NetID;
 import de.tudarmstadt.maki.simonstrator.api.component.network.NetInterface;
 import de.tudarmstadt.maki.simonstrator.api.component.overlay.IPeerStatusListener;
 import de.tudarmstadt.maki.simonstrator.api.component.overlay.OverlayComponent;
@@ -20,28 +24,65 @@ import de.tudarmstadt.maki.simonstrator.api.operation.Operation;
 import de.tudarmstadt.maki.simonstrator.api.operation.OperationCallback;
 import de.tudarmstadt.maki.simonstrator.api.operation.Operations;
 import de.tudarmstadt.maki.simonstrator.overlay.AbstractOverlayNode;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingSettings.Params;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingSettings.Times;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.analyzer.IFloodingTopologyAnalyzer;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.messages.BloomUpdateMessage;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.messages.BundleMessage;
 import de.tudarmstadt.maki.simonstrator.overlay.flooding.messages.ConnectPeersMessage;
 import de.tudarmstadt.maki.simonstrator.overlay.flooding.messages.ConnectPeersMessageAnswer;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.messages.DisconnectMessage;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.messages.FloodMessage;
 import de.tudarmstadt.maki.simonstrator.overlay.flooding.messages.FloodingMessage;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.messages.GraftMessage;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.messages.IHaveMessage;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.messages.NeighborPullMessage;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.messages.NeighborPullReplyMessage;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.messages.PruneMessage;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.messages.QueryMessage;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.messages.QueryResponseMessage;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.messages.RenewLeaseMessage;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.messages.ShuffleMessage;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.messages.ShuffleReplyMessage;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.messages.WalkCheckMessage;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.messages.WalkMessage;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.messages.WalkResultMessage;
 import de.tudarmstadt.maki.simonstrator.overlay.flooding.operations.JoinTrackerOperation;
 import de.tudarmstadt.maki.simonstrator.overlay.flooding.operations.MaintenanceOperation;
-import org.apache.commons.collections.set.SynchronizedSet;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.operations.RandomWalkOperation;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.operations.SearchOperation;
+import de.tudarmstadt.maki.simonstrator.overlay.util.IndexedSet;
+import de.tudarmstadt.maki.simonstrator.overlay.util.SeenMessageCache;
 
 public class FloodingNode extends AbstractOverlayNode implements
  TransMessageListener, IPeerStatusListener {
 
-  public static final boolean FLAG_LAST_TASK = false;
+	/**
+	 * Values of {@link Params#NEIGHBOR_EXCHANGE}: connect requests carry no
+	 * neighbors, the full neighbor contacts or a digest of the neighbor IDs
+	 */
+	public static final int NEIGHBOR_EXCHANGE_NONE = 0;
+
+	public static final int NEIGHBOR_EXCHANGE_FULL = 1;
+
+	public static final int NEIGHBOR_EXCHANGE_DIGEST = 2;
+
+	/**
+	 * Values of {@link Params#FORWARDING_MODE}
+	 */
+	public static final int FORWARDING_FLOOD = 0;
+
+	public static final int FORWARDING_GOSSIP = 1;
 
-  public static final List<FloodingNode> allNodes = Collections.synchronizedList(new LinkedList<FloodingNode>());
-  private static final Random random = new Random();
+	public static final int FORWARDING_PLUMTREE = 2;
+
+  private static final Random random = Randoms.getRandom(FloodingNode.class);
 
   public Semaphore acceptIngoingConnections;
   public Semaphore acceptIngoingConnectionsAccepted = new Semaphore(0);
   public Semaphore establishOutgoingConnections;
   public Semaphore establishOutgoingConnectionsAccepted = new Semaphore(0);
 
-  public Semaphore maxConnectionAttempts;
-
 	/**
 	 * The settings object used to define settings of the overlay
 	 */
@@ -63,20 +104,105 @@ public class FloodingNode extends AbstractOverlayNode implements
 	private MessageBasedTransport transport;
 
 	/**
-	 * Potential overlay neighbors of the node
+	 * Potential overlay neighbors of the node (supports O(1) random picks)
 	 */
-	private final Set<FloodingContact> potentialNeighbors = Collections.synchronizedSet(new LinkedHashSet<FloodingContact>());
+	private final IndexedSet<FloodingContact> potentialNeighbors = new IndexedSet<FloodingContact>();
 
 	/**
 	 * Connected neighbors of the node
 	 */
-	public Set<FloodingContact> connectedNeighbors = Collections.synchronizedSet(new LinkedHashSet<FloodingContact>());
+	public final IndexedSet<FloodingContact> connectedNeighbors = new IndexedSet<FloodingContact>();
+
+	/**
+	 * Establishes outgoing connections (pipelined, with backoff)
+	 */
+	private final ConnectionManager connectionManager;
+
+	/**
+	 * Evicts neighbors that stopped sending messages
+	 */
+	private final FailureDetector failureDetector;
+
+	/**
+	 * Bundles messages to the same neighbor (if configured)
+	 */
+	private final MessageBatcher batcher;
+
+	/**
+	 * Broadcast tree, only used with {@link #FORWARDING_PLUMTREE}
+	 */
+	private final PlumtreeBroadcast plumtree;
+
+	/**
+	 * Floods queries and aggregates their responses
+	 */
+	private final QueryHandler queryHandler;
+
+	/**
+	 * Passes random walkers on and tracks our random-walk searches
+	 */
+	private final RandomWalker randomWalker;
+
+	/**
+	 * Bloom filters to guide queries, null if not configured
+	 */
+	private final ContentRouting contentRouting;
+
+	/**
+	 * Long-range links, null if not configured
+	 */
+	private final SmallWorldRewiring smallWorldRewiring;
+
+	/**
+	 * Keys of the content held by this node, answered in queries
+	 */
+	private final Set<String> localContent = new HashSet<String>();
+
+	/**
+	 * Join again as soon as the host is back online
+	 */
+	private boolean rejoinWhenOnline = false;
 
 	/**
 	 * The operation that does maintenance of the connections etc.
 	 */
 	private MaintenanceOperation maintenanceOperation;
 
+	/**
+	 * Floods that have already been seen by this node (bounded)
+	 */
+	private final SeenMessageCache seenFloods;
+
+	/**
+	 * Sequence number of the last flood started by this node
+	 */
+	private int floodSequenceNumber = 0;
+
+	private FloodingListener floodingListener;
+
+	/**
+	 * Informed about changes of the connected neighbors, null if not
+	 * configured
+	 */
+	private IFloodingTopologyAnalyzer topologyAnalyzer;
+
+	/**
+	 * Dense index of this node in the {@link FloodingNodeRegistry}
+	 */
+	private final int registryIndex;
+
+	/**
+	 * Time of the last registration or lease renewal at the tracker
+	 */
+	private long lastLeaseRenewal = -1;
+
+	/**
+	 * Entries we offered in our last shuffle request. These are the first to
+	 * be replaced by received entries. The offer of a reply is kept apart, so
+	 * that it does not replace the offer of a request still in flight.
+	 */
+	private List<FloodingContact> lastShuffleOffer = Collections.emptyList();
+
 	/**
 	 * The constructor, called by the node factory
 	 * 
@@ -88,7 +214,29 @@ public class FloodingNode extends AbstractOverlayNode implements
 		super(host);
 		this.localPort = port;
 		this.settings = settings;
-    allNodes.add(this);
+		this.seenFloods = new SeenMessageCache(
+				settings.getParam(Params.FLOOD_CACHE_SIZE));
+		this.connectionManager = new ConnectionManager(this);
+		this.failureDetector = new FailureDetector(this);
+		this.batcher = new MessageBatcher(this);
+		if (settings.getParam(Params.FORWARDING_MODE) == FORWARDING_PLUMTREE) {
+			this.plumtree = new PlumtreeBroadcast(this);
+		} else {
+			this.plumtree = null;
+		}
+		this.queryHandler = new QueryHandler(this);
+		this.randomWalker = new RandomWalker(this);
+		if (settings.getParam(Params.BLOOM_FILTER_BITS) > 0) {
+			this.contentRouting = new ContentRouting(this);
+		} else {
+			this.contentRouting = null;
+		}
+		if (settings.getParam(Params.SMALL_WORLD_LINKS) > 0) {
+			this.smallWorldRewiring = new SmallWorldRewiring(this);
+		} else {
+			this.smallWorldRewiring = null;
+		}
+		this.registryIndex = FloodingNodeRegistry.register(this);
 	}
 
   public synchronized void setBudget(int count) {
@@ -103,34 +251,6 @@ public class FloodingNode extends AbstractOverlayNode implements
           establishOutgoingConnections.release();
         }
       }
-      maxConnectionAttempts = new Semaphore(count * 100);
-    }
-  }
-
-  public boolean leaseOutgoingConnection() {
-    return establishOutgoingConnections.tryAcquire();
-  }
-
-  public void connectToSomeone() {
-    if (maxConnectionAttempts.tryAcquire()) {
-      FloodingContact fc = null;
-      synchronized (potentialNeighbors) {
-        if (!potentialNeighbors.isEmpty()) {
-          ArrayList<FloodingContact> list = new ArrayList<>();
-          for (FloodingContact potentialNeighbor : potentialNeighbors) {
-            list.add(potentialNeighbor);
-          }
-          fc = list.remove(new Random().nextInt(list.size()));
-          potentialNeighbors.remove(fc);
-        }
-      }
-      if (fc != null) {
-        getTransport().send(new ConnectPeersMessage(localContact, connectedNeighbors), fc.getNetID(), FloodingNodeFactory.DEFAULT_NODE_PORT);
-      } else {
-        establishOutgoingConnections.release();
-      }
-    } else {
-      establishOutgoingConnections.release();
     }
   }
 
@@ -151,10 +271,17 @@ public class FloodingNode extends AbstractOverlayNode implements
 			e.printStackTrace();
 		}
 
-		localContact = new FloodingContact(getHost().getId(), transport.getTransInfo());
+		localContact = FloodingNodeFactory.intern(new FloodingContact(
+				getHost().getId(), transport.getTransInfo()));
 
 		addPeerStatusListener(this);
 
+		try {
+			topologyAnalyzer = Monitor.get(IFloodingTopologyAnalyzer.class);
+		} catch (AnalyzerNotAvailableException e) {
+			topologyAnalyzer = null;
+		}
+
 		// Bind the message Handler
 		transport.setTransportMessageListener(this);
 
@@ -165,36 +292,397 @@ public class FloodingNode extends AbstractOverlayNode implements
 	public void messageArrived(Message msg, TransInfo sender, int commID) {
 		// Handle incoming messages
 
+		if (msg instanceof BundleMessage) {
+			for (FloodingMessage bundled : ((BundleMessage) msg).getMessages()) {
+				messageArrived(bundled, sender, commID);
+			}
+			return;
+		}
+
+		// Every message of a neighbor shows that it is alive
+		if (msg instanceof FloodingMessage) {
+			failureDetector.heard(((FloodingMessage) msg).getSenderContact());
+		}
+
 		// To work with message, cast it to its specific type
 		if (msg instanceof ConnectPeersMessage) { // replace by your own type
-      boolean result = acceptIngoingConnections.tryAcquire();
+      boolean result = acceptIngoingConnections != null
+          && !connectedNeighbors.contains(((ConnectPeersMessage) msg).getSenderContact())
+          && acceptIngoingConnections.tryAcquire();
       getTransport()
-          .send(new ConnectPeersMessageAnswer(this.localContact, result),
-              sender.getNetId(), FloodingNodeFactory.DEFAULT_NODE_PORT);
+          .sendReply(new ConnectPeersMessageAnswer(this.localContact, result),
+              sender.getNetId(), sender.getPort(), commID);
       if (result) {
         acceptIngoingConnectionsAccepted.release();
-        connectedNeighbors.add(((ConnectPeersMessage) msg).getSenderContact());
+        addConnectedNeighbor(((ConnectPeersMessage) msg).getSenderContact());
       }
-      if (FLAG_LAST_TASK) {
-        synchronized (potentialNeighbors) {
-          Set<FloodingContact> newContact = new HashSet<>();
-          for (FloodingContact fc : ((ConnectPeersMessage) msg).getNeighbors()) {
-            newContact.add(fc);
-          }
-          newContact.removeAll(connectedNeighbors);
-          potentialNeighbors.addAll(newContact);
-        }
-      }
-		} else if (msg instanceof ConnectPeersMessageAnswer) {
-      ConnectPeersMessageAnswer cpma = (ConnectPeersMessageAnswer) msg;
-      if (cpma.isAccept()) {
-        establishOutgoingConnectionsAccepted.release();
-        connectedNeighbors.add(cpma.getSenderContact());
-      } else {
-        connectToSomeone();
-      }
-    }
+      handleNeighborExchange((ConnectPeersMessage) msg, sender);
+		} else if (msg instanceof NeighborPullMessage) {
+			int[] hashes = ((NeighborPullMessage) msg).getHashes();
+			List<FloodingContact> requested = new ArrayList<FloodingContact>(
+					hashes.length);
+			for (FloodingContact neighbor : connectedNeighbors) {
+				if (NeighborDigest.contains(hashes,
+						NeighborDigest.hash(neighbor))) {
+					requested.add(neighbor);
+				}
+			}
+			sendToNode(new NeighborPullReplyMessage(localContact, requested),
+					sender.getNetId());
+		} else if (msg instanceof NeighborPullReplyMessage) {
+			mergeIntoView(((NeighborPullReplyMessage) msg).getNeighbors());
+		} else if (msg instanceof DisconnectMessage) {
+			connectionManager.releaseConnection(((DisconnectMessage) msg)
+					.getSenderContact());
+		} else if (msg instanceof FloodMessage) {
+			handleFlood((FloodMessage) msg);
+		} else if (msg instanceof IHaveMessage) {
+			if (plumtree != null) {
+				plumtree.ihaveReceived((IHaveMessage) msg);
+			}
+		} else if (msg instanceof GraftMessage) {
+			if (plumtree != null) {
+				plumtree.graftReceived((GraftMessage) msg);
+			}
+		} else if (msg instanceof PruneMessage) {
+			if (plumtree != null) {
+				plumtree.pruneReceived(((PruneMessage) msg).getSenderContact());
+			}
+		} else if (msg instanceof QueryMessage) {
+			queryHandler.queryReceived((QueryMessage) msg);
+		} else if (msg instanceof QueryResponseMessage) {
+			queryHandler.responseReceived((QueryResponseMessage) msg);
+		} else if (msg instanceof BloomUpdateMessage) {
+			if (contentRouting != null) {
+				contentRouting.updateReceived((BloomUpdateMessage) msg);
+			}
+		} else if (msg instanceof WalkMessage) {
+			randomWalker.walkReceived((WalkMessage) msg);
+		} else if (msg instanceof WalkCheckMessage) {
+			randomWalker.checkReceived((WalkCheckMessage) msg, sender, commID);
+		} else if (msg instanceof WalkResultMessage) {
+			randomWalker.resultReceived((WalkResultMessage) msg);
+		} else if (msg instanceof ShuffleReplyMessage) {
+			mergeIntoView(((ShuffleReplyMessage) msg).getEntries());
+		} else if (msg instanceof ShuffleMessage) {
+			ShuffleMessage shuffle = (ShuffleMessage) msg;
+			List<FloodingContact> replyOffer = potentialNeighbors.sample(
+					settings.getParam(Params.SHUFFLE_LENGTH), random,
+					shuffle.getSenderContact());
+			sendToNode(new ShuffleReplyMessage(localContact, replyOffer),
+					sender.getNetId());
+			mergeIntoView(shuffle.getEntries(), replyOffer);
+		}
+
+	}
+
+	/**
+	 * Creates a connect request containing our neighbors as configured via
+	 * {@link Params#NEIGHBOR_EXCHANGE}
+	 * 
+	 * @return
+	 */
+	public ConnectPeersMessage createConnectRequest() {
+		switch (settings.getParam(Params.NEIGHBOR_EXCHANGE)) {
+		case NEIGHBOR_EXCHANGE_FULL:
+			return new ConnectPeersMessage(localContact, connectedNeighbors);
+		case NEIGHBOR_EXCHANGE_DIGEST:
+			return new ConnectPeersMessage(localContact,
+					NeighborDigest.create(connectedNeighbors));
+		default:
+			return new ConnectPeersMessage(localContact);
+		}
+	}
 
+	/**
+	 * Learn about the neighbors of the sender of a connect request. Full
+	 * contacts are added directly, for a digest we pull the contacts we do
+	 * not know yet.
+	 * 
+	 * @param msg
+	 * @param sender
+	 */
+	private void handleNeighborExchange(ConnectPeersMessage msg,
+			TransInfo sender) {
+		if (!msg.getNeighbors().isEmpty()) {
+			mergeIntoView(msg.getNeighbors());
+		}
+		int[] digest = msg.getDigest();
+		if (digest == null || digest.length == 0) {
+			return;
+		}
+		int ownHash = NeighborDigest.hash(localContact);
+		int numUnknown = 0;
+		int[] unknown = null;
+		for (int hash : digest) {
+			if (hash == ownHash
+					|| NeighborDigest.containsHash(connectedNeighbors, hash)
+					|| NeighborDigest.containsHash(potentialNeighbors, hash)) {
+				continue;
+			}
+			if (unknown == null) {
+				unknown = new int[digest.length];
+			}
+			unknown[numUnknown++] = hash;
+		}
+		if (numUnknown > 0) {
+			sendToNode(new NeighborPullMessage(localContact, Arrays.copyOf(
+					unknown, numUnknown)), sender.getNetId());
+		}
+	}
+
+	/**
+	 * Starts a new flood with the given payload and the configured TTL
+	 *
+	 * @param payload
+	 */
+	public void flood(Message payload) {
+		floodSequenceNumber++;
+		long id = SeenMessageCache.key(localContact.getNodeID().value(),
+				floodSequenceNumber);
+		seenFloods.markSeen(id);
+		FloodMessage msg = new FloodMessage(localContact, floodSequenceNumber,
+				settings.getParam(Params.FLOOD_TTL), payload);
+		if (plumtree != null) {
+			plumtree.broadcast(msg, id, null);
+		} else {
+			forwardFlood(msg, null);
+		}
+	}
+
+	/**
+	 * Delivers a received flood (if it is new) and forwards it as long as the
+	 * TTL permits.
+	 *
+	 * @param msg
+	 */
+	private void handleFlood(FloodMessage msg) {
+		long id = SeenMessageCache.key(msg.getOrigin().getNodeID().value(),
+				msg.getSequenceNumber());
+		if (!seenFloods.markSeen(id)) {
+			// Duplicate
+			if (plumtree != null) {
+				plumtree.duplicateReceived(msg.getSenderContact());
+			}
+			return;
+		}
+		if (floodingListener != null) {
+			floodingListener.receivedFlood(msg.getOrigin(), msg.getPayload(),
+					msg.getHopCount() + 1);
+		}
+		if (plumtree != null) {
+			plumtree.broadcast(new FloodMessage(localContact, msg), id,
+					msg.getSenderContact());
+		} else if (msg.getTTL() > 1) {
+			forwardFlood(new FloodMessage(localContact, msg),
+					msg.getSenderContact());
+		}
+	}
+
+	/**
+	 * Sends the flood to the connected neighbors (except the one we received
+	 * it from), depending on {@link Params#FORWARDING_MODE}. When gossiping,
+	 * the origin still sends to all neighbors so that the flood does not die
+	 * out on the first hop.
+	 *
+	 * @param msg
+	 * @param receivedFrom
+	 *            or null, if the flood originates at this node
+	 */
+	private void forwardFlood(FloodMessage msg, FloodingContact receivedFrom) {
+		if (receivedFrom != null
+				&& settings.getParam(Params.FORWARDING_MODE) == FORWARDING_GOSSIP) {
+			gossipFlood(msg, receivedFrom);
+			return;
+		}
+		for (FloodingContact neighbor : connectedNeighbors) {
+			if (neighbor.equals(receivedFrom)
+					|| neighbor.equals(msg.getOrigin())) {
+				continue;
+			}
+			sendToNode(msg, neighbor.getNetID());
+		}
+	}
+
+	/**
+	 * Forwards the flood to {@link Params#GOSSIP_FANOUT} random neighbors or,
+	 * if the fanout is 0, to each neighbor with
+	 * {@link Params#GOSSIP_PROBABILITY}.
+	 *
+	 * @param msg
+	 * @param receivedFrom
+	 */
+	private void gossipFlood(FloodMessage msg, FloodingContact receivedFrom) {
+		int fanout = settings.getParam(Params.GOSSIP_FANOUT);
+		if (fanout > 0) {
+			// neither the sender nor the origin count towards the fanout
+			for (FloodingContact neighbor : connectedNeighbors.sample(fanout,
+					random, receivedFrom, msg.getOrigin())) {
+				sendToNode(msg, neighbor.getNetID());
+			}
+		} else {
+			double probability = settings
+					.getParam(Params.GOSSIP_PROBABILITY) / 100d;
+			for (FloodingContact neighbor : connectedNeighbors) {
+				if (neighbor.equals(receivedFrom)
+						|| neighbor.equals(msg.getOrigin())) {
+					continue;
+				}
+				if (random.nextDouble() < probability) {
+					sendToNode(msg, neighbor.getNetID());
+				}
+			}
+		}
+	}
+
+	/**
+	 * One round of the gossip-based peer sampling (Cyclon-like): exchange a
+	 * random subset of our partial view (the potential neighbors) with a
+	 * random neighbor. This keeps the potential neighbors fresh without asking
+	 * the tracker again.
+	 */
+	public void shuffleView() {
+		FloodingContact partner = connectedNeighbors.getRandom(random);
+		if (partner == null) {
+			partner = potentialNeighbors.getRandom(random);
+		}
+		if (partner == null) {
+			return;
+		}
+		List<FloodingContact> offer = potentialNeighbors.sample(
+				settings.getParam(Params.SHUFFLE_LENGTH) - 1, random, partner);
+		lastShuffleOffer = new ArrayList<FloodingContact>(offer);
+		offer.add(localContact);
+		sendToNode(new ShuffleMessage(localContact, offer), partner.getNetID());
+	}
+
+	/**
+	 * Merges received contacts into the bounded partial view. If the view is
+	 * full, entries we offered in our last shuffle request are replaced first,
+	 * then random entries.
+	 * 
+	 * @param entries
+	 */
+	private void mergeIntoView(List<FloodingContact> entries) {
+		mergeIntoView(entries, lastShuffleOffer);
+	}
+
+	/**
+	 * Merges received contacts into the bounded partial view, replacing the
+	 * given offered entries first
+	 * 
+	 * @param entries
+	 * @param offered
+	 */
+	private void mergeIntoView(List<FloodingContact> entries,
+			List<FloodingContact> offered) {
+		int viewSize = settings.getParam(Params.SHUFFLE_VIEW_SIZE);
+		if (viewSize < 1) {
+			return;
+		}
+		int replaceIndex = 0;
+		for (FloodingContact contact : entries) {
+			if (contact.equals(localContact)
+					|| connectedNeighbors.contains(contact)
+					|| potentialNeighbors.contains(contact)) {
+				continue;
+			}
+			while (potentialNeighbors.size() >= viewSize) {
+				if (replaceIndex < offered.size()) {
+					potentialNeighbors.remove(offered.get(replaceIndex++));
+				} else {
+					potentialNeighbors.removeRandom(random);
+				}
+			}
+			potentialNeighbors.add(FloodingNodeFactory.intern(contact));
+		}
+	}
+
+	/**
+	 * Adds content with the given key to this node, i.e., the node is
+	 * returned as result of searches for the key
+	 *
+	 * @param key
+	 */
+	public void addLocalContent(String key) {
+		localContent.add(key);
+	}
+
+	public void removeLocalContent(String key) {
+		localContent.remove(key);
+	}
+
+	public boolean hasLocalContent(String key) {
+		return localContent.contains(key);
+	}
+
+	/**
+	 * Keys of the content held by this node (unmodifiable)
+	 *
+	 * @return
+	 */
+	public Set<String> getLocalContent() {
+		return Collections.unmodifiableSet(localContent);
+	}
+
+	/**
+	 * The content routing or null, if not configured
+	 *
+	 * @return
+	 */
+	public ContentRouting getContentRouting() {
+		return contentRouting;
+	}
+
+	/**
+	 * Searches nodes holding content with the given key, see
+	 * {@link SearchOperation}
+	 *
+	 * @param key
+	 * @param wantedResults
+	 * @param callback
+	 * @return the scheduled operation
+	 */
+	public SearchOperation search(String key, int wantedResults,
+			OperationCallback<List<FloodingContact>> callback) {
+		SearchOperation op = new SearchOperation(this, key, wantedResults,
+				callback);
+		op.scheduleImmediately();
+		return op;
+	}
+
+	/**
+	 * Searches nodes holding content with the given key with random walkers,
+	 * see {@link RandomWalkOperation}
+	 *
+	 * @param key
+	 * @param wantedResults
+	 * @param callback
+	 * @return the scheduled operation
+	 */
+	public RandomWalkOperation randomWalk(String key, int wantedResults,
+			OperationCallback<List<FloodingContact>> callback) {
+		RandomWalkOperation op = new RandomWalkOperation(this, key,
+				wantedResults, callback);
+		op.scheduleImmediately();
+		return op;
+	}
+
+	public RandomWalker getRandomWalker() {
+		return randomWalker;
+	}
+
+	public QueryHandler getQueryHandler() {
+		return queryHandler;
+	}
+
+	/**
+	 * Register the listener that is informed about incoming floods
+	 *
+	 * @param floodingListener
+	 */
+	public void setFloodingListener(FloodingListener floodingListener) {
+		this.floodingListener = floodingListener;
 	}
 
 
@@ -226,7 +714,10 @@ public class FloodingNode extends AbstractOverlayNode implements
 			@Override
 			public void calledOperationSucceeded(Operation<List<FloodingContact>> joinOp) {
 				// Add new contacts from tracker to neighborhood list
-				potentialNeighbors.addAll(joinOp.getResult());
+				for (FloodingContact contact : joinOp.getResult()) {
+					potentialNeighbors.add(FloodingNodeFactory.intern(contact));
+				}
+				lastLeaseRenewal = Time.getCurrentTime();
 
 				// Set the peer present
 				setPeerStatus(PeerStatus.PRESENT);
@@ -238,6 +729,7 @@ public class FloodingNode extends AbstractOverlayNode implements
 				 */
 				maintenanceOperation = new MaintenanceOperation(FloodingNode.this, Operations.getEmptyCallback());
 				maintenanceOperation.start();
+				failureDetector.start();
 			}
 
 			@Override
@@ -250,6 +742,24 @@ public class FloodingNode extends AbstractOverlayNode implements
 		op.scheduleImmediately();
 	}
 
+	/**
+	 * Renews the membership lease at the tracker, if a third of the lease
+	 * duration passed since the last renewal.
+	 */
+	public void renewTrackerLeaseIfDue() {
+		long now = Time.getCurrentTime();
+		if (lastLeaseRenewal >= 0
+				&& now - lastLeaseRenewal < settings.getTime(Times.TRACKER_LEASE) / 3) {
+			return;
+		}
+		lastLeaseRenewal = now;
+		FloodingContact trackerContact = FloodingNodeFactory
+				.getTrackerContact(this);
+		getTransport().send(new RenewLeaseMessage(localContact),
+				trackerContact.getTransInfo().getNetId(),
+				trackerContact.getTransInfo().getPort());
+	}
+
 	public MessageBasedTransport getTransport() {
 		return transport;
 	}
@@ -258,6 +768,96 @@ public class FloodingNode extends AbstractOverlayNode implements
 		return settings;
 	}
 
+	/**
+	 * Adds a connected neighbor and informs the topology analyzer
+	 * 
+	 * @param contact
+	 * @return false, if already connected
+	 */
+	boolean addConnectedNeighbor(FloodingContact contact) {
+		contact = FloodingNodeFactory.intern(contact);
+		if (!connectedNeighbors.add(contact)) {
+			return false;
+		}
+		failureDetector.neighborAdded(contact);
+		if (plumtree != null) {
+			plumtree.neighborAdded(contact);
+		}
+		if (contentRouting != null) {
+			contentRouting.neighborAdded(contact);
+		}
+		if (topologyAnalyzer != null) {
+			topologyAnalyzer.onNeighborAdded(this, contact);
+		}
+		return true;
+	}
+
+	/**
+	 * Removes a connected neighbor and informs the topology analyzer
+	 * 
+	 * @param contact
+	 * @return false, if not connected
+	 */
+	boolean removeConnectedNeighbor(FloodingContact contact) {
+		if (!connectedNeighbors.remove(contact)) {
+			return false;
+		}
+		failureDetector.neighborRemoved(contact);
+		if (plumtree != null) {
+			plumtree.neighborRemoved(contact);
+		}
+		if (contentRouting != null) {
+			contentRouting.neighborRemoved(contact);
+		}
+		if (topologyAnalyzer != null) {
+			topologyAnalyzer.onNeighborRemoved(this, contact);
+		}
+		return true;
+	}
+
+	/**
+	 * True, if the flood with the given ID (see
+	 * {@link SeenMessageCache#key(long, int)}) was already received
+	 * 
+	 * @param id
+	 * @return
+	 */
+	boolean hasSeenFlood(long id) {
+		return seenFloods.contains(id);
+	}
+
+	/**
+	 * Sends a message to another node, via the {@link MessageBatcher}
+	 * 
+	 * @param msg
+	 * @param destination
+	 */
+	public void sendToNode(FloodingMessage msg, NetID destination) {
+		batcher.send(msg, destination);
+	}
+
+	/**
+	 * The small-world rewiring or null, if not configured
+	 *
+	 * @return
+	 */
+	public SmallWorldRewiring getSmallWorldRewiring() {
+		return smallWorldRewiring;
+	}
+
+	public ConnectionManager getConnectionManager() {
+		return connectionManager;
+	}
+
+	/**
+	 * Dense index of this node in the {@link FloodingNodeRegistry}
+	 * 
+	 * @return
+	 */
+	public int getRegistryIndex() {
+		return registryIndex;
+	}
+
 	@Override
 	public OverlayContact getLocalOverlayContact() {
 		return localContact;
@@ -265,14 +865,44 @@ public class FloodingNode extends AbstractOverlayNode implements
 
 	@Override
 	public void wentOffline(Host arg0, NetInterface arg1) {
-		// Host is disconnected from network. For now: do nothing!
-
+		/*
+		 * Host is disconnected from network: all connections are lost, our
+		 * neighbors will detect this via their failure detectors.
+		 */
+		failureDetector.stop();
+		batcher.clear();
+		if (plumtree != null) {
+			plumtree.clear();
+		}
+		queryHandler.clear();
+		randomWalker.clear();
+		if (contentRouting != null) {
+			contentRouting.clear();
+		}
+		if (smallWorldRewiring != null) {
+			smallWorldRewiring.clear();
+		}
+		if (maintenanceOperation != null) {
+			maintenanceOperation.stop();
+			maintenanceOperation = null;
+		}
+		for (FloodingContact neighbor : new ArrayList<FloodingContact>(
+				connectedNeighbors)) {
+			connectionManager.releaseConnection(neighbor);
+		}
+		if (getPeerStatus() != PeerStatus.ABSENT) {
+			rejoinWhenOnline = true;
+			setPeerStatus(PeerStatus.ABSENT);
+		}
 	}
 
 	@Override
 	public void wentOnline(Host arg0, NetInterface arg1) {
-		// Host is connected to network. For now: do nothing!
-
+		// Host is connected to network again
+		if (rejoinWhenOnline) {
+			rejoinWhenOnline = false;
+			join();
+		}
 	}
 
 	@Override
@@ -280,11 +910,11 @@ public class FloodingNode extends AbstractOverlayNode implements
 		// The status of the peer is changed
 	}
 
-	public Set<FloodingContact> getPotentialNeighbors() {
+	public IndexedSet<FloodingContact> getPotentialNeighbors() {
 		return potentialNeighbors;
 	}
 
-	public Set<FloodingContact> getConnectedNeighbors() {
+	public IndexedSet<FloodingContact> getConnectedNeighbors() {
 		return connectedNeighbors;
 	}
 
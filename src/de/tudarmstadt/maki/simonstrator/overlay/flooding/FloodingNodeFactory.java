@@ -7,8 +7,10 @@ import de.tudarmstadt.maki.simonstrator.api.Time;
 import de.tudarmstadt.maki.simonstrator.api.component.HostComponentFactory;
 import de.tudarmstadt.maki.simonstrator.api.component.overlay.OverlayComponent;
 import de.tudarmstadt.maki.simonstrator.api.component.transport.MessageBasedTransport;
+import de.tudarmstadt.maki.simonstrator.overlay.ContactPool;
 import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingContact.ContactType;
 import de.tudarmstadt.maki.simonstrator.overlay.flooding.tracker.FloodingTracker;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.tracker.TrackerRing;
 
 /**
  * This factory creates all components that are configurable through the
@@ -22,6 +24,9 @@ public class FloodingNodeFactory implements HostComponentFactory {
 
 	public static final int DEFAULT_TRACKER_ID = 0;
 
+	/**
+	 * Granularity of the {@link TickScheduler}
+	 */
 	public static final long TICK_INTERVAL = 120 * Time.MILLISECOND;
 
 	/**
@@ -35,14 +40,20 @@ public class FloodingNodeFactory implements HostComponentFactory {
 	private static int trackerPort = -1;
 
 	/**
-	 * Keep reference to tracker contact (to not generate it multiple times)
+	 * Keep reference to tracker contact (to not generate it multiple times),
+	 * only used for a tracker configured via setDefaultTracker
 	 */
 	private static FloodingContact trackerContact = null;
 
 	/**
-	 * Tracker reference (only interesting for simulation)
+	 * Tracker shards (only interesting for simulation)
+	 */
+	private static TrackerRing trackerRing = new TrackerRing();
+
+	/**
+	 * Canonical contacts of all nodes and trackers
 	 */
-	public static FloodingTracker tracker = null;
+	private static final ContactPool<FloodingContact> contactPool = new ContactPool<FloodingContact>();
 
 	private static enum FactoryType {
 		TRACKER, PEER
@@ -59,7 +70,14 @@ public class FloodingNodeFactory implements HostComponentFactory {
 	 * @param factoryType
 	 */
 	public FloodingNodeFactory() {
-		//
+		/*
+		 * Factories are created while the configuration is parsed, before any
+		 * host exists. Drop nodes and trackers of a previous run in this JVM.
+		 */
+		FloodingNodeRegistry.clear();
+		TickScheduler.reset();
+		trackerRing = new TrackerRing();
+		contactPool.clear();
 	}
 
 	public void setFactoryType(String factoryType) {
@@ -105,10 +123,8 @@ public class FloodingNodeFactory implements HostComponentFactory {
 
 			return node;
 		case TRACKER:
-			if (tracker != null)
-				throw new AssertionError("There can be only one tracker!");
-
-			tracker = new FloodingTracker(host, DEFAULT_TRACKER_PORT, settings.clone());
+			FloodingTracker tracker = new FloodingTracker(host, DEFAULT_TRACKER_PORT, settings.clone());
+			trackerRing.addTracker(tracker);
 
 			Monitor.log(FloodingNodeFactory.class, Level.DEBUG, "Factory: New tracker created: " + host.getId());
 
@@ -120,6 +136,9 @@ public class FloodingNodeFactory implements HostComponentFactory {
 	}
 
 	/**
+	 * The tracker shard responsible for the given node. The shard is
+	 * determined locally via consistent hashing of the node ID.
+	 * 
 	 * @param transport
 	 * @return the contact information of the tracker
 	 */
@@ -136,15 +155,35 @@ public class FloodingNodeFactory implements HostComponentFactory {
 					transport.getTransInfo(transport.getNetInterface()
 							.getByName(FloodingNodeFactory.trackerAddress),
 							trackerPort), ContactType.TRACKER);
+			return trackerContact;
 
-		} else if (FloodingNodeFactory.tracker != null) {
-			// Use tracker instance (most likely a simulation)
-			trackerContact = FloodingNodeFactory.tracker.getLocalOverlayContact();
+		} else if (!trackerRing.isEmpty()) {
+			// Use tracker instances (most likely a simulation)
+			return trackerRing.getResponsibleTracker(node.getHost().getId())
+					.getLocalOverlayContact();
 
 		} else {
 			throw new AssertionError("No Tracker found!");
 
 		}
-		return trackerContact;
+	}
+
+	/**
+	 * The canonical instance of the contact, see {@link ContactPool}
+	 * 
+	 * @param contact
+	 * @return
+	 */
+	public static FloodingContact intern(FloodingContact contact) {
+		return contactPool.intern(contact);
+	}
+
+	/**
+	 * All tracker shards that were created by this factory
+	 * 
+	 * @return
+	 */
+	public static TrackerRing getTrackerRing() {
+		return trackerRing;
 	}
 }
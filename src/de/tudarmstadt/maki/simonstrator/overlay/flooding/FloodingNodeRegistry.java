@@ -0,0 +1,147 @@
+package de.tudarmstadt.maki.simonstrator.overlay.flooding;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import de.tudarmstadt.maki.simonstrator.api.common.graph.INodeID;
+
+/**
+ * Registry of all {@link FloodingNode}s of the current simulation, intended
+ * for analyzers and debug output. Each node gets a dense index (in the order
+ * of creation) that can be used to address per-node arrays.
+ *
+ * Nodes are only ever appended to a backing array, a {@link Snapshot} is
+ * therefore just the array together with the number of nodes at the time it
+ * was taken. Snapshots are cheap, immutable and can safely be iterated by
+ * other threads (e.g., the printer in the GUIRunner) while new nodes are
+ * added. {@link #clear()} is called by the {@link FloodingNodeFactory} so that
+ * nodes do not leak into the next run within the same JVM.
+ */
+public final class FloodingNodeRegistry {
+
+	private static final Snapshot EMPTY = new Snapshot(new FloodingNode[0], 0);
+
+	private static FloodingNode[] nodes = new FloodingNode[64];
+
+	private static int count = 0;
+
+	private static final Map<INodeID, FloodingNode> byHost = new ConcurrentHashMap<INodeID, FloodingNode>();
+
+	private static volatile Snapshot snapshot = EMPTY;
+
+	private FloodingNodeRegistry() {
+		// static only
+	}
+
+	/**
+	 * Adds the node to the registry.
+	 *
+	 * @param node
+	 * @return the dense index of the node
+	 */
+	static synchronized int register(FloodingNode node) {
+		if (count == nodes.length) {
+			nodes = Arrays.copyOf(nodes, nodes.length * 2);
+		}
+		int index = count;
+		nodes[index] = node;
+		count++;
+		byHost.put(node.getHost().getId(), node);
+		// volatile write publishes the array entry
+		snapshot = new Snapshot(nodes, count);
+		return index;
+	}
+
+	/**
+	 * Removes all nodes. Snapshots taken before remain valid.
+	 */
+	public static synchronized void clear() {
+		nodes = new FloodingNode[64];
+		count = 0;
+		byHost.clear();
+		snapshot = EMPTY;
+	}
+
+	/**
+	 * The node running on the host with the given ID
+	 *
+	 * @param hostId
+	 * @return the node or null
+	 */
+	public static FloodingNode getNode(INodeID hostId) {
+		return byHost.get(hostId);
+	}
+
+	/**
+	 * Consistent view on all nodes that are registered right now
+	 *
+	 * @return
+	 */
+	public static Snapshot snapshot() {
+		return snapshot;
+	}
+
+	/**
+	 * Immutable view of the registry at one point in time. Use
+	 * {@link #size()} and {@link #get(int)} to iterate without allocations.
+	 */
+	public static final class Snapshot implements Iterable<FloodingNode> {
+
+		private final FloodingNode[] nodes;
+
+		private final int size;
+
+		private Snapshot(FloodingNode[] nodes, int size) {
+			this.nodes = nodes;
+			this.size = size;
+		}
+
+		public int size() {
+			return size;
+		}
+
+		/**
+		 * The node with the given dense index
+		 *
+		 * @param index
+		 * @return
+		 */
+		public FloodingNode get(int index) {
+			if (index < 0 || index >= size) {
+				throw new IndexOutOfBoundsException(index + " of " + size);
+			}
+			return nodes[index];
+		}
+
+		@Override
+		public Iterator<FloodingNode> iterator() {
+			return new Iterator<FloodingNode>() {
+
+				private int next = 0;
+
+				@Override
+				public boolean hasNext() {
+					return next < size;
+				}
+
+				@Override
+				public FloodingNode next() {
+					if (next >= size) {
+						throw new NoSuchElementException();
+					}
+					return nodes[next++];
+				}
+
+				@Override
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
+
+	}
+
+}
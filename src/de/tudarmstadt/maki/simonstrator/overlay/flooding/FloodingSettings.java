@@ -207,7 +207,141 @@ public class FloodingSettings {
 		 */
 		MAX_NUM_NEW_NEIGHBORS(10),
 		
-		MAX_NUM_CONNECTIONS(5);
+		MAX_NUM_CONNECTIONS(5),
+
+		/**
+		 * Initial TTL of a flood, i.e., the maximum number of hops
+		 */
+		FLOOD_TTL(7),
+
+		/**
+		 * Number of floods each node remembers for duplicate suppression
+		 */
+		FLOOD_CACHE_SIZE(4096),
+
+		/**
+		 * Number of contacts a tracker sends to the other tracker shards
+		 */
+		TRACKER_SAMPLE_SIZE(50),
+
+		/**
+		 * Maximum size of the partial view (potential neighbors) maintained
+		 * by the peer sampling
+		 */
+		SHUFFLE_VIEW_SIZE(20),
+
+		/**
+		 * Number of contacts exchanged in one shuffle
+		 */
+		SHUFFLE_LENGTH(5),
+
+		/**
+		 * Maximum number of concurrent connect requests
+		 */
+		CONNECT_WINDOW(3),
+
+		/**
+		 * Neighbors sent along with a connect request: 0 = none, 1 = full
+		 * contacts, 2 = digest of the IDs (contacts are pulled on demand)
+		 */
+		NEIGHBOR_EXCHANGE(0),
+
+		/**
+		 * Suspicion level (phi) at which the failure detector evicts a
+		 * neighbor. Assuming exponentially distributed inter-arrival times, a
+		 * neighbor is suspected after PHI_THRESHOLD * ln(10) mean intervals
+		 * without any message.
+		 */
+		PHI_THRESHOLD(4),
+
+		/**
+		 * Byte budget of a bundle of messages to the same neighbor, 0
+		 * disables batching
+		 */
+		BATCH_MAX_BYTES(0),
+
+		/**
+		 * Forwarding of floods: 0 = flooding to all neighbors, 1 = gossip to a
+		 * random subset of the neighbors (see GOSSIP_FANOUT and
+		 * GOSSIP_PROBABILITY), 2 = plumtree broadcast tree
+		 */
+		FORWARDING_MODE(0),
+
+		/**
+		 * Number of random neighbors a gossiping node forwards to, 0 to use
+		 * GOSSIP_PROBABILITY instead
+		 */
+		GOSSIP_FANOUT(3),
+
+		/**
+		 * Probability (in percent) to forward to each neighbor when gossiping
+		 * with GOSSIP_FANOUT 0
+		 */
+		GOSSIP_PROBABILITY(60),
+
+		/**
+		 * Number of floods a node keeps to answer plumtree grafts
+		 */
+		PLUMTREE_STORE_SIZE(1000),
+
+		/**
+		 * TTL of the first round of an expanding-ring search
+		 */
+		QUERY_TTL_START(1),
+
+		/**
+		 * Increase of the TTL with each round of an expanding-ring search
+		 */
+		QUERY_TTL_STEP(2),
+
+		/**
+		 * TTL of the last round of an expanding-ring search
+		 */
+		QUERY_TTL_MAX(7),
+
+		/**
+		 * Number of walkers of a random-walk search
+		 */
+		RANDOM_WALK_WALKERS(4),
+
+		/**
+		 * Maximum number of hops of each walker
+		 */
+		RANDOM_WALK_TTL(64),
+
+		/**
+		 * A walker checks back with its origin every this many hops, 0
+		 * disables the check-back
+		 */
+		RANDOM_WALK_CHECK_INTERVAL(4),
+
+		/**
+		 * Number of query results each node caches on the reverse path, 0
+		 * disables the cache
+		 */
+		QUERY_CACHE_SIZE(0),
+
+		/**
+		 * Bits per level of the attenuated Bloom filters used to guide
+		 * queries, 0 disables content routing
+		 */
+		BLOOM_FILTER_BITS(0),
+
+		/**
+		 * Number of levels (hops) of the attenuated Bloom filters
+		 */
+		BLOOM_FILTER_DEPTH(3),
+
+		/**
+		 * Number of bits set per key in the Bloom filters
+		 */
+		BLOOM_FILTER_HASHES(4),
+
+		/**
+		 * Number of long-range links of the small-world rewiring, 0 disables
+		 * the rewiring (neighbors are chosen uniformly at random)
+		 */
+		SMALL_WORLD_LINKS(0);
 		
 		private final int defaultValue;
 
@@ -235,7 +369,70 @@ public class FloodingSettings {
 		/**
 		 * Interval between maintenance operations
 		 */
-		MAINTENANCE_INTERVAL(10 * Time.SECOND);
+		MAINTENANCE_INTERVAL(10 * Time.SECOND),
+
+		/**
+		 * Validity of a membership at the tracker, peers renew their lease
+		 * after a third of this time
+		 */
+		TRACKER_LEASE(5 * Time.MINUTE),
+
+		/**
+		 * Interval between sample exchanges of tracker shards
+		 */
+		TRACKER_EXCHANGE_INTERVAL(30 * Time.SECOND),
+
+		/**
+		 * Base of the exponential backoff after a rejected connect request
+		 */
+		CONNECT_BACKOFF(200 * Time.MILLISECOND),
+
+		/**
+		 * Interval of heartbeats to connected neighbors, 0 disables the
+		 * failure detector
+		 */
+		HEARTBEAT_INTERVAL(2 * Time.SECOND),
+
+		/**
+		 * Maximum delay of the first maintenance after joining. Spreads the
+		 * maintenance of the nodes over the tick buckets of the interval.
+		 */
+		MAINTENANCE_JITTER(10 * Time.SECOND),
+
+		/**
+		 * Maximum time a message is buffered for batching
+		 */
+		BATCH_DELAY(20 * Time.MILLISECOND),
+
+		/**
+		 * Plumtree: IHAVE announcements are collected for this time
+		 */
+		PLUMTREE_IHAVE_DELAY(100 * Time.MILLISECOND),
+
+		/**
+		 * Plumtree: time to wait for an announced flood before grafting
+		 */
+		PLUMTREE_GRAFT_TIMEOUT(500 * Time.MILLISECOND),
+
+		/**
+		 * Time a node waits for the responses of a query per remaining hop
+		 */
+		QUERY_HOP_TIMEOUT(300 * Time.MILLISECOND),
+
+		/**
+		 * Duration of a random-walk search, if not enough results are found
+		 */
+		RANDOM_WALK_TIMEOUT(10 * Time.SECOND),
+
+		/**
+		 * Time query results are answered from the cache
+		 */
+		QUERY_CACHE_TTL(60 * Time.SECOND),
+
+		/**
+		 * Interval between replacements of a long-range link
+		 */
+		SMALL_WORLD_REWIRE_INTERVAL(60 * Time.SECOND);
 
 
 		private final long defaultValue;
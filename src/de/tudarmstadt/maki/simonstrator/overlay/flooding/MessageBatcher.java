@@ -0,0 +1,120 @@
+package de.tudarmstadt.maki.simonstrator.overlay.flooding;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.tudarmstadt.maki.simonstrator.api.Event;
+import de.tudarmstadt.maki.simonstrator.api.EventHandler;
+import de.tudarmstadt.maki.simonstrator.api.component.network.NetID;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingSettings.Params;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingSettings.Times;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.messages.AbstractOperationMessage;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.messages.BundleMessage;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.messages.FloodingMessage;
+
+/**
+ * Optional batching stage for messages to other nodes. Messages are buffered
+ * per destination for at most {@link Times#BATCH_DELAY} or until
+ * {@link Params#BATCH_MAX_BYTES} are reached and then sent as one
+ * {@link BundleMessage}, saving the per-datagram header overhead and MAC
+ * queue slots. A batch with a single message is sent as is. If
+ * BATCH_MAX_BYTES is 0, messages are sent immediately.
+ *
+ * {@link AbstractOperationMessage}s (searches, random walks) are never
+ * batched: a bundle carries no operation ID, and the OverlayOperationAnalyzer
+ * could no longer attribute their traffic to the operation.
+ */
+public class MessageBatcher implements EventHandler {
+
+	private final FloodingNode node;
+
+	private final int maxBytes;
+
+	private final long delay;
+
+	private final Map<NetID, Batch> batches = new HashMap<NetID, Batch>();
+
+	/**
+	 * Messages buffered for one destination
+	 */
+	private static class Batch {
+
+		private final NetID destination;
+
+		private final List<FloodingMessage> messages = new ArrayList<FloodingMessage>();
+
+		private long bytes = 0;
+
+		public Batch(NetID destination) {
+			this.destination = destination;
+		}
+
+	}
+
+	public MessageBatcher(FloodingNode node) {
+		this.node = node;
+		this.maxBytes = node.getSettings().getParam(Params.BATCH_MAX_BYTES);
+		this.delay = node.getSettings().getTime(Times.BATCH_DELAY);
+	}
+
+	/**
+	 * Sends the message to the node with the given NetID, possibly delayed
+	 * and bundled with other messages
+	 * 
+	 * @param msg
+	 * @param destination
+	 */
+	public void send(FloodingMessage msg, NetID destination) {
+		if (maxBytes <= 0 || msg instanceof AbstractOperationMessage) {
+			node.getTransport().send(msg, destination,
+					FloodingNodeFactory.DEFAULT_NODE_PORT);
+			return;
+		}
+		Batch batch = batches.get(destination);
+		if (batch != null && batch.bytes + msg.getSize() > maxBytes) {
+			flush(batch);
+			batch = null;
+		}
+		if (batch == null) {
+			batch = new Batch(destination);
+			batches.put(destination, batch);
+			Event.scheduleWithDelay(delay, this, batch, 0);
+		}
+		batch.messages.add(msg);
+		batch.bytes += msg.getSize();
+		if (batch.bytes >= maxBytes) {
+			flush(batch);
+		}
+	}
+
+	@Override
+	public void eventOccurred(Object content, int type) {
+		Batch batch = (Batch) content;
+		if (batches.get(batch.destination) == batch) {
+			flush(batch);
+		}
+	}
+
+	private void flush(Batch batch) {
+		batches.remove(batch.destination);
+		if (batch.messages.size() == 1) {
+			node.getTransport().send(batch.messages.get(0), batch.destination,
+					FloodingNodeFactory.DEFAULT_NODE_PORT);
+		} else {
+			node.getTransport().send(
+					new BundleMessage((FloodingContact) node
+							.getLocalOverlayContact(), batch.messages),
+					batch.destination, FloodingNodeFactory.DEFAULT_NODE_PORT);
+		}
+	}
+
+	/**
+	 * Drops all buffered messages (e.g., when going offline)
+	 */
+	public void clear() {
+		batches.clear();
+	}
+
+}
@@ -0,0 +1,84 @@
+package de.tudarmstadt.maki.simonstrator.overlay.flooding;
+
+import java.util.Collection;
+
+/**
+ * Compact representation of a neighbor set as 32 bit hashes of the node IDs.
+ * Used instead of full contacts in the neighbor exchange of
+ * {@link de.tudarmstadt.maki.simonstrator.overlay.flooding.messages.ConnectPeersMessage}
+ * - the receiver pulls only the contacts it does not know yet.
+ */
+public final class NeighborDigest {
+
+	/**
+	 * Size of one digest entry in bytes
+	 */
+	public static final int ENTRY_SIZE = 4;
+
+	private NeighborDigest() {
+		// utility class
+	}
+
+	/**
+	 * Short hash of the contact's node ID
+	 * 
+	 * @param contact
+	 * @return
+	 */
+	public static int hash(FloodingContact contact) {
+		long h = contact.getNodeID().value() * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+
+	/**
+	 * Digest of the given contacts
+	 * 
+	 * @param contacts
+	 * @return
+	 */
+	public static int[] create(Collection<FloodingContact> contacts) {
+		int[] digest = new int[contacts.size()];
+		int i = 0;
+		for (FloodingContact contact : contacts) {
+			if (i == digest.length) {
+				break;
+			}
+			digest[i++] = hash(contact);
+		}
+		return digest;
+	}
+
+	/**
+	 * True, if one of the contacts has the given hash
+	 * 
+	 * @param contacts
+	 * @param hash
+	 * @return
+	 */
+	public static boolean containsHash(Collection<FloodingContact> contacts,
+			int hash) {
+		for (FloodingContact contact : contacts) {
+			if (hash(contact) == hash) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * True, if the hash is part of the digest
+	 * 
+	 * @param digest
+	 * @param hash
+	 * @return
+	 */
+	public static boolean contains(int[] digest, int hash) {
+		for (int entry : digest) {
+			if (entry == hash) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
@@ -0,0 +1,267 @@
+package de.tudarmstadt.maki.simonstrator.overlay.flooding;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import de.tudarmstadt.maki.simonstrator.api.Event;
+import de.tudarmstadt.maki.simonstrator.api.EventHandler;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingSettings.Params;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingSettings.Times;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.messages.FloodMessage;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.messages.GraftMessage;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.messages.IHaveMessage;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.messages.PruneMessage;
+import de.tudarmstadt.maki.simonstrator.overlay.util.IndexedSet;
+
+/**
+ * Epidemic broadcast tree (Plumtree) over the connected neighbors of a
+ * {@link FloodingNode}, used if {@link Params#FORWARDING_MODE} is
+ * {@link FloodingNode#FORWARDING_PLUMTREE}.
+ *
+ * Floods are pushed eagerly to the eager peers only, all lazy peers receive
+ * the message ID in an {@link IHaveMessage} (collected for
+ * {@link Times#PLUMTREE_IHAVE_DELAY}). A node that receives a duplicate prunes
+ * the link, so that the eager peers converge to a spanning tree. If a node
+ * learns about a flood via IHAVE but does not receive it within
+ * {@link Times#PLUMTREE_GRAFT_TIMEOUT}, it grafts the link to the announcing
+ * node and requests the flood, which repairs the tree after failures. The TTL
+ * of floods is ignored in this mode.
+ */
+public class PlumtreeBroadcast implements EventHandler {
+
+	private static final int EVENT_FLUSH_IHAVE = 1;
+
+	private static final int EVENT_GRAFT_TIMEOUT = 2;
+
+	private final FloodingNode node;
+
+	private final IndexedSet<FloodingContact> eagerPeers = new IndexedSet<FloodingContact>();
+
+	private final IndexedSet<FloodingContact> lazyPeers = new IndexedSet<FloodingContact>();
+
+	/**
+	 * Recently received floods by ID, to answer grafts
+	 */
+	private final Map<Long, FloodMessage> store;
+
+	/**
+	 * Announced but not yet received floods by ID
+	 */
+	private final Map<Long, ArrayDeque<FloodingContact>> missing = new HashMap<Long, ArrayDeque<FloodingContact>>();
+
+	/**
+	 * IDs to be announced to each lazy peer with the next flush
+	 */
+	private final Map<FloodingContact, LazyQueue> lazyQueues = new LinkedHashMap<FloodingContact, LazyQueue>();
+
+	private boolean flushScheduled = false;
+
+	private final long ihaveDelay;
+
+	private final long graftTimeout;
+
+	private static class LazyQueue {
+
+		private long[] ids = new long[8];
+
+		private int size = 0;
+
+		public void add(long id) {
+			if (size == ids.length) {
+				ids = Arrays.copyOf(ids, size * 2);
+			}
+			ids[size++] = id;
+		}
+
+	}
+
+	public PlumtreeBroadcast(FloodingNode node) {
+		this.node = node;
+		this.ihaveDelay = node.getSettings().getTime(
+				Times.PLUMTREE_IHAVE_DELAY);
+		this.graftTimeout = node.getSettings().getTime(
+				Times.PLUMTREE_GRAFT_TIMEOUT);
+		final int storeSize = node.getSettings().getParam(
+				Params.PLUMTREE_STORE_SIZE);
+		this.store = new LinkedHashMap<Long, FloodMessage>() {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Entry<Long, FloodMessage> eldest) {
+				return size() > storeSize;
+			}
+		};
+	}
+
+	/**
+	 * New neighbors start as eager peers
+	 *
+	 * @param contact
+	 */
+	public void neighborAdded(FloodingContact contact) {
+		lazyPeers.remove(contact);
+		eagerPeers.add(contact);
+	}
+
+	public void neighborRemoved(FloodingContact contact) {
+		eagerPeers.remove(contact);
+		lazyPeers.remove(contact);
+		lazyQueues.remove(contact);
+	}
+
+	/**
+	 * Disseminates a flood, either started by this node (receivedFrom is
+	 * null) or received for the first time.
+	 *
+	 * @param msg
+	 *            the message to forward (sender is this node)
+	 * @param id
+	 * @param receivedFrom
+	 */
+	public void broadcast(FloodMessage msg, long id, FloodingContact receivedFrom) {
+		missing.remove(id);
+		store.put(id, msg);
+		if (receivedFrom != null && node.getConnectedNeighbors().contains(receivedFrom)) {
+			// the link the flood arrived on is part of the tree
+			lazyPeers.remove(receivedFrom);
+			eagerPeers.add(receivedFrom);
+		}
+		for (FloodingContact peer : eagerPeers) {
+			if (!peer.equals(receivedFrom) && !peer.equals(msg.getOrigin())) {
+				node.sendToNode(msg, peer.getNetID());
+			}
+		}
+		for (FloodingContact peer : lazyPeers) {
+			if (!peer.equals(receivedFrom) && !peer.equals(msg.getOrigin())) {
+				announce(peer, id);
+			}
+		}
+	}
+
+	/**
+	 * A flood arrived that was already received via another path: the link
+	 * to the sender is removed from the tree.
+	 *
+	 * @param sender
+	 */
+	public void duplicateReceived(FloodingContact sender) {
+		if (eagerPeers.remove(sender)) {
+			lazyPeers.add(sender);
+			node.sendToNode(new PruneMessage(
+					(FloodingContact) node.getLocalOverlayContact()), sender
+					.getNetID());
+		}
+	}
+
+	public void pruneReceived(FloodingContact sender) {
+		if (eagerPeers.remove(sender)) {
+			lazyPeers.add(sender);
+		}
+	}
+
+	public void ihaveReceived(IHaveMessage msg) {
+		FloodingContact sender = msg.getSenderContact();
+		for (long id : msg.getMessageIds()) {
+			if (node.hasSeenFlood(id)) {
+				continue;
+			}
+			ArrayDeque<FloodingContact> announcers = missing.get(id);
+			if (announcers == null) {
+				announcers = new ArrayDeque<FloodingContact>(2);
+				missing.put(id, announcers);
+				Event.scheduleWithDelay(graftTimeout, this, id,
+						EVENT_GRAFT_TIMEOUT);
+			}
+			announcers.add(sender);
+		}
+	}
+
+	public void graftReceived(GraftMessage msg) {
+		FloodingContact sender = msg.getSenderContact();
+		if (!node.getConnectedNeighbors().contains(sender)) {
+			return;
+		}
+		lazyPeers.remove(sender);
+		eagerPeers.add(sender);
+		FloodMessage flood = store.get(msg.getMessageId());
+		if (flood != null) {
+			node.sendToNode(flood, sender.getNetID());
+		}
+	}
+
+	private void announce(FloodingContact peer, long id) {
+		LazyQueue queue = lazyQueues.get(peer);
+		if (queue == null) {
+			queue = new LazyQueue();
+			lazyQueues.put(peer, queue);
+		}
+		queue.add(id);
+		if (!flushScheduled) {
+			flushScheduled = true;
+			Event.scheduleWithDelay(ihaveDelay, this, null, EVENT_FLUSH_IHAVE);
+		}
+	}
+
+	@Override
+	public void eventOccurred(Object content, int type) {
+		if (type == EVENT_FLUSH_IHAVE) {
+			flushScheduled = false;
+			FloodingContact local = (FloodingContact) node
+					.getLocalOverlayContact();
+			for (Entry<FloodingContact, LazyQueue> entry : lazyQueues
+					.entrySet()) {
+				LazyQueue queue = entry.getValue();
+				node.sendToNode(
+						new IHaveMessage(local, Arrays.copyOf(queue.ids,
+								queue.size)), entry.getKey().getNetID());
+			}
+			lazyQueues.clear();
+		} else if (type == EVENT_GRAFT_TIMEOUT) {
+			Long id = (Long) content;
+			ArrayDeque<FloodingContact> announcers = missing.get(id);
+			if (announcers == null) {
+				// received in the meantime
+				return;
+			}
+			FloodingContact announcer = announcers.poll();
+			if (announcer == null) {
+				missing.remove(id);
+				return;
+			}
+			if (node.getConnectedNeighbors().contains(announcer)) {
+				lazyPeers.remove(announcer);
+				eagerPeers.add(announcer);
+			}
+			node.sendToNode(new GraftMessage((FloodingContact) node
+					.getLocalOverlayContact(), id), announcer.getNetID());
+			// try the next announcer, if this one does not answer in time
+			Event.scheduleWithDelay(graftTimeout / 2, this, id,
+					EVENT_GRAFT_TIMEOUT);
+		}
+	}
+
+	/**
+	 * Drops all state (e.g., when going offline)
+	 */
+	public void clear() {
+		eagerPeers.clear();
+		lazyPeers.clear();
+		store.clear();
+		missing.clear();
+		lazyQueues.clear();
+	}
+
+	public int getNumEagerPeers() {
+		return eagerPeers.size();
+	}
+
+	public int getNumLazyPeers() {
+		return lazyPeers.size();
+	}
+
+}
@@ -0,0 +1,345 @@
+package de.tudarmstadt.maki.simonstrator.overlay.flooding;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import de.tudarmstadt.maki.simonstrator.api.Event;
+import de.tudarmstadt.maki.simonstrator.api.EventHandler;
+import de.tudarmstadt.maki.simonstrator.api.Time;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingSettings.Params;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingSettings.Times;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.messages.QueryMessage;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.messages.QueryResponseMessage;
+import de.tudarmstadt.maki.simonstrator.overlay.util.ExpiringLruCache;
+import de.tudarmstadt.maki.simonstrator.overlay.util.SeenMessageCache;
+
+/**
+ * Floods {@link QueryMessage}s over the connected neighbors of a
+ * {@link FloodingNode} and aggregates the responses along the reverse path.
+ *
+ * Each node that forwards a query remembers the node it received the query
+ * from and waits for the responses of all nodes it forwarded to, at most
+ * remaining TTL * {@link Times#QUERY_HOP_TIMEOUT}. The results of the subtree
+ * and the local result are then merged into a single
+ * {@link QueryResponseMessage} to the upstream node. Duplicates are answered
+ * with an empty response, so that the upstream node does not have to wait
+ * for the timeout. At the origin, the merged results are passed to the
+ * {@link QueryCallback} of the query.
+ *
+ * If {@link Params#QUERY_CACHE_SIZE} is set, nodes on the reverse path cache
+ * the non-empty results of their subtree for {@link Times#QUERY_CACHE_TTL},
+ * together with the TTL they were collected with. Later queries for the same
+ * key are answered directly from the cache, without forwarding them, if their
+ * remaining TTL does not exceed the cached one. Results that were taken from
+ * the cache are not cached again, so that entries do expire.
+ *
+ * If {@link ContentRouting} is enabled, queries are only forwarded to the
+ * neighbors whose Bloom filters match.
+ */
+public class QueryHandler implements EventHandler {
+
+	/**
+	 * Informed at the origin of a query once all responses arrived or the
+	 * query timed out
+	 */
+	public interface QueryCallback {
+
+		/**
+		 *
+		 * @param key
+		 * @param results
+		 *            nodes that hold the requested content
+		 */
+		public void queryFinished(String key, Set<FloodingContact> results);
+
+	}
+
+	private final FloodingNode node;
+
+	private final long hopTimeout;
+
+	/**
+	 * Queries that have already been seen by this node
+	 */
+	private final SeenMessageCache seenQueries;
+
+	/**
+	 * Results forwarded on the reverse path, by key
+	 */
+	private final ExpiringLruCache<String, CachedResults> responseCache;
+
+	private long cacheHits = 0;
+
+	private long cacheMisses = 0;
+
+	/**
+	 * Queries we wait for responses for, by ID
+	 */
+	private final Map<Long, PendingQuery> pending = new HashMap<Long, PendingQuery>();
+
+	/**
+	 * Sequence number of the last query started by this node
+	 */
+	private int querySequenceNumber = 0;
+
+	/**
+	 * Results of a subtree and the TTL they were collected with
+	 */
+	private static class CachedResults {
+
+		private final Set<FloodingContact> results;
+
+		private final int ttl;
+
+		public CachedResults(Set<FloodingContact> results, int ttl) {
+			this.results = results;
+			this.ttl = ttl;
+		}
+
+	}
+
+	/**
+	 * State of a query at one node of the reverse path
+	 */
+	private static class PendingQuery {
+
+		private final long id;
+
+		private final QueryMessage query;
+
+		/**
+		 * null at the origin
+		 */
+		private final FloodingContact upstream;
+
+		/**
+		 * only at the origin
+		 */
+		private final QueryCallback callback;
+
+		private final Set<FloodingContact> results = new LinkedHashSet<FloodingContact>();
+
+		private int outstanding;
+
+		private boolean finished = false;
+
+		/**
+		 * true, if the query was answered from the response cache
+		 */
+		private boolean fromCache = false;
+
+		public PendingQuery(long id, QueryMessage query,
+				FloodingContact upstream, QueryCallback callback) {
+			this.id = id;
+			this.query = query;
+			this.upstream = upstream;
+			this.callback = callback;
+		}
+
+	}
+
+	public QueryHandler(FloodingNode node) {
+		this.node = node;
+		this.hopTimeout = node.getSettings().getTime(Times.QUERY_HOP_TIMEOUT);
+		this.seenQueries = new SeenMessageCache(node.getSettings().getParam(
+				Params.FLOOD_CACHE_SIZE));
+		this.responseCache = new ExpiringLruCache<String, CachedResults>(
+				node.getSettings().getParam(Params.QUERY_CACHE_SIZE), node
+						.getSettings().getTime(Times.QUERY_CACHE_TTL));
+	}
+
+	/**
+	 * Starts a new query with the given TTL. The callback is informed exactly
+	 * once.
+	 *
+	 * @param key
+	 * @param ttl
+	 * @param operationID
+	 *            the operation the query belongs to
+	 * @param callback
+	 */
+	public void startQuery(String key, int ttl, int operationID,
+			QueryCallback callback) {
+		FloodingContact localContact = (FloodingContact) node
+				.getLocalOverlayContact();
+		querySequenceNumber++;
+		long id = SeenMessageCache.key(localContact.getNodeID().value(),
+				querySequenceNumber);
+		seenQueries.markSeen(id);
+		QueryMessage query = new QueryMessage(localContact,
+				querySequenceNumber, key, ttl, operationID);
+		PendingQuery state = new PendingQuery(id, query, null, callback);
+		process(state);
+	}
+
+	public void queryReceived(QueryMessage msg) {
+		long id = SeenMessageCache.key(msg.getOrigin().getNodeID().value(),
+				msg.getSequenceNumber());
+		if (!seenQueries.markSeen(id)) {
+			// Duplicate, the sender should not wait for us
+			node.sendToNode(
+					new QueryResponseMessage((FloodingContact) node
+							.getLocalOverlayContact(), msg,
+							Collections.<FloodingContact> emptyList()),
+					msg.getSenderContact().getNetID());
+			return;
+		}
+		process(new PendingQuery(id, msg, msg.getSenderContact(), null));
+	}
+
+	/**
+	 * Adds the local result and forwards the query (if the TTL permits)
+	 *
+	 * @param state
+	 */
+	private void process(PendingQuery state) {
+		QueryMessage query = state.query;
+		if (node.hasLocalContent(query.getKey())) {
+			state.results.add((FloodingContact) node.getLocalOverlayContact());
+		}
+		if (state.upstream != null && responseCache.isEnabled()) {
+			CachedResults cached = responseCache.get(query.getKey(),
+					Time.getCurrentTime());
+			if (cached != null && cached.ttl >= query.getTTL()) {
+				cacheHits++;
+				state.results.addAll(cached.results);
+				state.fromCache = true;
+				finish(state);
+				return;
+			}
+			cacheMisses++;
+		}
+		QueryMessage forward;
+		if (state.upstream == null) {
+			forward = query;
+		} else if (query.getTTL() > 1) {
+			forward = new QueryMessage(
+					(FloodingContact) node.getLocalOverlayContact(), query);
+		} else {
+			finish(state);
+			return;
+		}
+		List<FloodingContact> targets = new ArrayList<FloodingContact>(node
+				.getConnectedNeighbors().size());
+		for (FloodingContact neighbor : node.getConnectedNeighbors()) {
+			if (!neighbor.equals(state.upstream)
+					&& !neighbor.equals(query.getOrigin())) {
+				targets.add(neighbor);
+			}
+		}
+		if (node.getContentRouting() != null) {
+			targets = node.getContentRouting().route(targets, query.getKey(),
+					forward.getTTL());
+		}
+		for (FloodingContact target : targets) {
+			node.sendToNode(forward, target.getNetID());
+			state.outstanding++;
+		}
+		if (state.outstanding == 0) {
+			finish(state);
+			return;
+		}
+		pending.put(state.id, state);
+		// the subtree answers within (forwarded TTL - 1) hop timeouts
+		Event.scheduleWithDelay(forward.getTTL() * hopTimeout, this, state, 0);
+	}
+
+	public void responseReceived(QueryResponseMessage msg) {
+		long id = SeenMessageCache.key(msg.getOrigin().getNodeID().value(),
+				msg.getSequenceNumber());
+		PendingQuery state = pending.get(id);
+		if (state == null) {
+			// late response
+			return;
+		}
+		state.results.addAll(msg.getResults());
+		state.outstanding--;
+		if (state.outstanding <= 0) {
+			finish(state);
+		}
+	}
+
+	/**
+	 * Sends the merged results upstream or informs the callback at the origin
+	 *
+	 * @param state
+	 */
+	private void finish(PendingQuery state) {
+		if (state.finished) {
+			return;
+		}
+		state.finished = true;
+		pending.remove(state.id);
+		if (state.upstream == null) {
+			state.callback.queryFinished(state.query.getKey(), state.results);
+		} else {
+			if (!state.fromCache && !state.results.isEmpty()) {
+				responseCache.put(state.query.getKey(), new CachedResults(
+						state.results, state.query.getTTL()),
+						Time.getCurrentTime());
+			}
+			node.sendToNode(
+					new QueryResponseMessage((FloodingContact) node
+							.getLocalOverlayContact(), state.query,
+							state.results), state.upstream.getNetID());
+		}
+	}
+
+	@Override
+	public void eventOccurred(Object content, int type) {
+		// Timeout: send what we have so far
+		finish((PendingQuery) content);
+	}
+
+	/**
+	 * Drops all pending queries (e.g., when going offline). Queries that were
+	 * started by this node finish with the results received so far.
+	 */
+	public void clear() {
+		List<PendingQuery> dropped = new ArrayList<PendingQuery>(
+				pending.values());
+		pending.clear();
+		for (PendingQuery state : dropped) {
+			if (state.upstream == null) {
+				finish(state);
+			} else {
+				state.finished = true;
+			}
+		}
+		responseCache.clear();
+	}
+
+	/**
+	 * Queries that were answered from the response cache
+	 *
+	 * @return
+	 */
+	public long getCacheHits() {
+		return cacheHits;
+	}
+
+	/**
+	 * Queries that were forwarded, as their key was not cached (at least not
+	 * with their TTL)
+	 *
+	 * @return
+	 */
+	public long getCacheMisses() {
+		return cacheMisses;
+	}
+
+	/**
+	 * Number of queries this node currently waits for responses for
+	 *
+	 * @return
+	 */
+	public int getNumPendingQueries() {
+		return pending.size();
+	}
+
+}
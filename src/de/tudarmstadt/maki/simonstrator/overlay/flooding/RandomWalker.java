@@ -0,0 +1,201 @@
+package de.tudarmstadt.maki.simonstrator.overlay.flooding;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import de.tudarmstadt.maki.simonstrator.api.Message;
+import de.tudarmstadt.maki.simonstrator.api.Randoms;
+import de.tudarmstadt.maki.simonstrator.api.component.transport.TransInfo;
+import de.tudarmstadt.maki.simonstrator.api.component.transport.TransMessageCallback;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingSettings.Params;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingSettings.Times;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.messages.WalkCheckMessage;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.messages.WalkCheckReplyMessage;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.messages.WalkMessage;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.messages.WalkResultMessage;
+
+/**
+ * Passes random walkers ({@link WalkMessage}) over the connected neighbors of
+ * a {@link FloodingNode} and keeps track of the searches started by the node.
+ *
+ * A walker is forwarded to one random neighbor (not the one it came from, if
+ * possible) until it reaches a node holding the content, which sends a
+ * {@link WalkResultMessage} directly to the origin, or until its TTL expires.
+ * Every {@link Params#RANDOM_WALK_CHECK_INTERVAL} hops, the walker checks
+ * back with the origin before moving on and is dropped if the search is
+ * finished (or the origin does not answer within {@link Times#MSG_TIMEOUT}).
+ * The cost of a search is therefore bounded by walkers * TTL, independent of
+ * the degree of the nodes.
+ */
+public class RandomWalker implements TransMessageCallback {
+
+	/**
+	 * A search started by this node
+	 */
+	public interface WalkCallback {
+
+		/**
+		 * A node holding the content was found
+		 *
+		 * @param holder
+		 */
+		public void resultReceived(FloodingContact holder);
+
+	}
+
+	private static final Random random = Randoms.getRandom(RandomWalker.class);
+
+	private final FloodingNode node;
+
+	private final int checkInterval;
+
+	/**
+	 * Running searches of this node by walk ID
+	 */
+	private final Map<Integer, WalkCallback> searches = new HashMap<Integer, WalkCallback>();
+
+	/**
+	 * Walkers waiting for the answer of their origin, by communication ID
+	 */
+	private final Map<Integer, WalkMessage> checking = new HashMap<Integer, WalkMessage>();
+
+	private int walkIdCounter = 0;
+
+	public RandomWalker(FloodingNode node) {
+		this.node = node;
+		this.checkInterval = node.getSettings().getParam(
+				Params.RANDOM_WALK_CHECK_INTERVAL);
+	}
+
+	/**
+	 * Starts a search with the given number of walkers, each of them sent to
+	 * a different neighbor (as far as possible)
+	 *
+	 * @param key
+	 * @param walkers
+	 * @param ttl
+	 * @param operationID
+	 * @param callback
+	 *            informed about results until {@link #stopWalk(int)} is called
+	 * @return the walk ID
+	 */
+	public int startWalk(String key, int walkers, int ttl, int operationID,
+			WalkCallback callback) {
+		int walkId = ++walkIdCounter;
+		searches.put(walkId, callback);
+		WalkMessage walker = new WalkMessage(
+				(FloodingContact) node.getLocalOverlayContact(), walkId, key,
+				ttl, operationID);
+		// distinct neighbors first, if there are more walkers they share
+		List<FloodingContact> targets = node.getConnectedNeighbors().sample(
+				walkers, random, null);
+		for (int i = 0; i < walkers && !targets.isEmpty(); i++) {
+			node.sendToNode(walker, targets.get(i % targets.size()).getNetID());
+		}
+		return walkId;
+	}
+
+	/**
+	 * Stops the search: walkers are stopped at their next check-back
+	 *
+	 * @param walkId
+	 */
+	public void stopWalk(int walkId) {
+		searches.remove(walkId);
+	}
+
+	public void walkReceived(WalkMessage msg) {
+		if (node.hasLocalContent(msg.getKey())) {
+			node.sendToNode(
+					new WalkResultMessage((FloodingContact) node
+							.getLocalOverlayContact(), msg), msg.getOrigin()
+							.getNetID());
+			return;
+		}
+		if (msg.getTTL() <= 1) {
+			return;
+		}
+		if (checkInterval > 0 && (msg.getHopCount() + 1) % checkInterval == 0) {
+			FloodingContact origin = msg.getOrigin();
+			int commId = node.getTransport().sendAndWait(
+					new WalkCheckMessage((FloodingContact) node
+							.getLocalOverlayContact(), msg),
+					origin.getNetID(), origin.getTransInfo().getPort(), this,
+					node.getSettings().getTime(Times.MSG_TIMEOUT));
+			checking.put(commId, msg);
+		} else {
+			forward(msg);
+		}
+	}
+
+	/**
+	 * Passes the walker on to a random neighbor
+	 *
+	 * @param msg
+	 */
+	private void forward(WalkMessage msg) {
+		FloodingContact sender = msg.getSenderContact();
+		List<FloodingContact> next = node.getConnectedNeighbors().sample(1,
+				random, sender);
+		FloodingContact target;
+		if (!next.isEmpty()) {
+			target = next.get(0);
+		} else if (node.getConnectedNeighbors().contains(sender)) {
+			// dead end, walk back
+			target = sender;
+		} else {
+			return;
+		}
+		node.sendToNode(
+				new WalkMessage((FloodingContact) node.getLocalOverlayContact(),
+						msg), target.getNetID());
+	}
+
+	/**
+	 * A walker of one of our searches checks back
+	 *
+	 * @param msg
+	 * @param sender
+	 * @param commID
+	 */
+	public void checkReceived(WalkCheckMessage msg, TransInfo sender,
+			int commID) {
+		boolean proceed = searches.containsKey(msg.getWalkId());
+		node.getTransport().sendReply(
+				new WalkCheckReplyMessage((FloodingContact) node
+						.getLocalOverlayContact(), msg, proceed),
+				sender.getNetId(), sender.getPort(), commID);
+	}
+
+	public void resultReceived(WalkResultMessage msg) {
+		WalkCallback callback = searches.get(msg.getWalkId());
+		if (callback != null) {
+			callback.resultReceived(msg.getSenderContact());
+		}
+	}
+
+	@Override
+	public void receive(Message msg, TransInfo senderInfo, int commId) {
+		WalkMessage walker = checking.remove(commId);
+		if (walker != null && ((WalkCheckReplyMessage) msg).isProceed()) {
+			forward(walker);
+		}
+	}
+
+	@Override
+	public void messageTimeoutOccured(int commId) {
+		// origin is gone, drop the walker
+		checking.remove(commId);
+	}
+
+	/**
+	 * Drops all walkers and searches (e.g., when going offline)
+	 */
+	public void clear() {
+		searches.clear();
+		checking.clear();
+	}
+
+}
@@ -0,0 +1,271 @@
+package de.tudarmstadt.maki.simonstrator.overlay.flooding;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+
+import de.tudarmstadt.maki.simonstrator.api.Randoms;
+import de.tudarmstadt.maki.simonstrator.api.Time;
+import de.tudarmstadt.maki.simonstrator.overlay.DefaultIDSpace;
+import de.tudarmstadt.maki.simonstrator.overlay.OverlayNodeID;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingSettings.Params;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingSettings.Times;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.messages.DisconnectMessage;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.operations.MaintenanceOperation;
+import de.tudarmstadt.maki.simonstrator.overlay.util.IndexedSet;
+
+/**
+ * Pushes the mesh towards a small world (Kleinberg), enabled by
+ * {@link Params#SMALL_WORLD_LINKS}. Each node is placed on a ring by hashing
+ * its ID into a {@link DefaultIDSpace}.
+ *
+ * Regular connections prefer potential neighbors that are close on the ring
+ * (the nearest of {@link #LOCAL_SAMPLES} random ones), which leads to a
+ * clustered, lattice-like mesh. In addition, each node keeps up to
+ * {@link Params#SMALL_WORLD_LINKS} long-range links, where a candidate at
+ * ring distance d (see {@link DefaultIDSpace#getMinDistance}) is chosen with a
+ * probability proportional to 1/d. With each
+ * {@link Times#SMALL_WORLD_REWIRE_INTERVAL}, the oldest long-range link is
+ * replaced by a new one (driven by the {@link MaintenanceOperation}). The
+ * replaced link is only dropped once the new one was accepted, so that its
+ * slot goes to the long-range link and the node keeps its link otherwise.
+ */
+public class SmallWorldRewiring {
+
+	/**
+	 * Size of the ring
+	 */
+	public static final int ID_BITS = 32;
+
+	/**
+	 * Number of random potential neighbors considered for a regular
+	 * connection
+	 */
+	public static final int LOCAL_SAMPLES = 4;
+
+	private static final DefaultIDSpace ID_SPACE = new DefaultIDSpace(ID_BITS);
+
+	private static final Random random = Randoms
+			.getRandom(SmallWorldRewiring.class);
+
+	private final FloodingNode node;
+
+	private final int numLongLinks;
+
+	private final long rewireInterval;
+
+	/**
+	 * Our position on the ring, computed on first use
+	 */
+	private OverlayNodeID position;
+
+	/**
+	 * Reused by {@link #distanceTo(FloodingContact)}
+	 */
+	private final long[] distance = ID_SPACE.createDistanceHolder();
+
+	/**
+	 * Established long-range links, oldest first
+	 */
+	private final LinkedHashSet<FloodingContact> longLinks = new LinkedHashSet<FloodingContact>();
+
+	private long lastRewire = -1;
+
+	/**
+	 * The long-range request in flight and the link it replaces (may be null)
+	 */
+	private FloodingContact pendingCandidate;
+
+	private FloodingContact pendingReplaced;
+
+	public SmallWorldRewiring(FloodingNode node) {
+		this.node = node;
+		this.numLongLinks = node.getSettings().getParam(
+				Params.SMALL_WORLD_LINKS);
+		this.rewireInterval = node.getSettings().getTime(
+				Times.SMALL_WORLD_REWIRE_INTERVAL);
+	}
+
+	/**
+	 * Position of the contact on the ring
+	 *
+	 * @param contact
+	 * @return
+	 */
+	public static OverlayNodeID positionOf(FloodingContact contact) {
+		return (OverlayNodeID) ID_SPACE.createIDUsingSHA1(String
+				.valueOf(contact.getNodeID().value()));
+	}
+
+	private OverlayNodeID getPosition() {
+		if (position == null) {
+			position = positionOf((FloodingContact) node
+					.getLocalOverlayContact());
+		}
+		return position;
+	}
+
+	/**
+	 * Ring distance to the given contact (at least 1)
+	 *
+	 * @param contact
+	 * @return
+	 */
+	private double distanceTo(FloodingContact contact) {
+		ID_SPACE.getMinDistance(getPosition(), positionOf(contact), distance);
+		return Math.max(1, ID_SPACE.toDouble(distance));
+	}
+
+	/**
+	 * Removes and returns the candidate for a regular connection: the one
+	 * closest to us on the ring out of a few random potential neighbors
+	 *
+	 * @param potentialNeighbors
+	 * @return the candidate or null
+	 */
+	public FloodingContact pickLocal(IndexedSet<FloodingContact> potentialNeighbors) {
+		FloodingContact best = null;
+		double bestDistance = Double.MAX_VALUE;
+		for (FloodingContact candidate : potentialNeighbors.sample(
+				LOCAL_SAMPLES, random, null)) {
+			double distance = distanceTo(candidate);
+			if (distance < bestDistance) {
+				best = candidate;
+				bestDistance = distance;
+			}
+		}
+		if (best != null) {
+			potentialNeighbors.remove(best);
+		}
+		return best;
+	}
+
+	/**
+	 * Establishes or replaces long-range links, called with each maintenance
+	 */
+	public void maintain() {
+		longLinks.retainAll(node.getConnectedNeighbors());
+		if (pendingCandidate != null) {
+			// wait for the answer to the last request
+			return;
+		}
+		long now = Time.getCurrentTime();
+		if (longLinks.size() >= numLongLinks && lastRewire >= 0
+				&& now - lastRewire < rewireInterval) {
+			return;
+		}
+		FloodingContact candidate = pickLongRange();
+		if (candidate == null) {
+			return;
+		}
+		lastRewire = now;
+		ConnectionManager connections = node.getConnectionManager();
+		FloodingContact replaced = null;
+		if (longLinks.size() >= numLongLinks) {
+			// swap the oldest long-range link
+			replaced = longLinks.iterator().next();
+		} else if (node.establishOutgoingConnections.availablePermits() == 0) {
+			// turn a regular outgoing link into a long-range link
+			for (FloodingContact neighbor : node.getConnectedNeighbors()) {
+				if (connections.isOutgoing(neighbor)
+						&& !longLinks.contains(neighbor)) {
+					replaced = neighbor;
+					break;
+				}
+			}
+			if (replaced == null) {
+				return;
+			}
+		}
+		node.getPotentialNeighbors().remove(candidate);
+		pendingCandidate = candidate;
+		pendingReplaced = replaced;
+		if (!connections.connectTo(candidate, true)) {
+			pendingCandidate = null;
+			pendingReplaced = null;
+		}
+	}
+
+	/**
+	 * The long-range request to the candidate was answered or timed out. If
+	 * it was accepted, the replaced link is dropped right before the
+	 * {@link ConnectionManager} takes the freed outgoing slot.
+	 *
+	 * @param candidate
+	 * @param accepted
+	 */
+	public void longRangeRequestDone(FloodingContact candidate,
+			boolean accepted) {
+		if (!candidate.equals(pendingCandidate)) {
+			return;
+		}
+		FloodingContact replaced = pendingReplaced;
+		pendingCandidate = null;
+		pendingReplaced = null;
+		if (accepted && replaced != null) {
+			longLinks.remove(replaced);
+			if (node.getConnectionManager().releaseConnection(replaced)) {
+				node.sendToNode(new DisconnectMessage((FloodingContact) node
+						.getLocalOverlayContact()), replaced.getNetID());
+			}
+		}
+	}
+
+	/**
+	 * Random potential neighbor, chosen with a probability inversely
+	 * proportional to its ring distance
+	 *
+	 * @return the candidate or null
+	 */
+	private FloodingContact pickLongRange() {
+		List<FloodingContact> candidates = new ArrayList<FloodingContact>();
+		List<Double> weights = new ArrayList<Double>();
+		double total = 0;
+		for (FloodingContact candidate : node.getPotentialNeighbors()) {
+			if (node.getConnectedNeighbors().contains(candidate)) {
+				continue;
+			}
+			double weight = 1 / distanceTo(candidate);
+			candidates.add(candidate);
+			weights.add(weight);
+			total += weight;
+		}
+		double r = random.nextDouble() * total;
+		for (int i = 0; i < candidates.size(); i++) {
+			r -= weights.get(i);
+			if (r <= 0) {
+				return candidates.get(i);
+			}
+		}
+		if (candidates.isEmpty()) {
+			return null;
+		}
+		// rounding
+		return candidates.get(candidates.size() - 1);
+	}
+
+	/**
+	 * A long-range connection was accepted
+	 *
+	 * @param contact
+	 */
+	public void linkEstablished(FloodingContact contact) {
+		longLinks.add(contact);
+	}
+
+	public int getNumLongLinks() {
+		return longLinks.size();
+	}
+
+	/**
+	 * Drops all state (e.g., when going offline)
+	 */
+	public void clear() {
+		longLinks.clear();
+		lastRewire = -1;
+		pendingCandidate = null;
+		pendingReplaced = null;
+	}
+
+}
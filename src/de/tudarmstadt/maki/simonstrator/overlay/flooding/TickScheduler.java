@@ -0,0 +1,171 @@
+package de.tudarmstadt.maki.simonstrator.overlay.flooding;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import de.tudarmstadt.maki.simonstrator.api.Event;
+import de.tudarmstadt.maki.simonstrator.api.EventHandler;
+import de.tudarmstadt.maki.simonstrator.api.Randoms;
+import de.tudarmstadt.maki.simonstrator.overlay.util.IndexedSet;
+
+/**
+ * Shared scheduler for periodic per-node work. Instead of one event per node
+ * and interval, the interval is divided into buckets of
+ * {@link FloodingNodeFactory#TICK_INTERVAL}. Every tick, one event runs all
+ * tasks of the current bucket, so the number of pending events depends on the
+ * number of buckets only.
+ *
+ * A task is placed into a random bucket among the next (jitter /
+ * TICK_INTERVAL) buckets, it is then executed once per interval (rounded to a
+ * multiple of the tick interval). There is one scheduler per interval, see
+ * {@link #forInterval(long)}.
+ */
+public class TickScheduler implements EventHandler {
+
+	/**
+	 * Periodic work driven by a {@link TickScheduler}
+	 */
+	public interface Task {
+
+		/**
+		 * Called once per interval
+		 */
+		public void tick();
+
+	}
+
+	private static final Map<Long, TickScheduler> schedulers = new HashMap<Long, TickScheduler>();
+
+	private final Random random = Randoms.getRandom(TickScheduler.class);
+
+	private final long tickInterval;
+
+	private final IndexedSet<Task>[] buckets;
+
+	private final Map<Task, Integer> bucketOf = new HashMap<Task, Integer>();
+
+	/**
+	 * Bucket that is executed with the next tick
+	 */
+	private int cursor = 0;
+
+	private boolean running = false;
+
+	/**
+	 * Reused to iterate a bucket while tasks are added or removed
+	 */
+	private Task[] buffer = new Task[16];
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private TickScheduler(long interval, long tickInterval) {
+		this.tickInterval = tickInterval;
+		int numBuckets = (int) Math.max(1,
+				(interval + tickInterval / 2) / tickInterval);
+		this.buckets = new IndexedSet[numBuckets];
+		for (int i = 0; i < numBuckets; i++) {
+			buckets[i] = new IndexedSet<Task>();
+		}
+	}
+
+	/**
+	 * The scheduler for tasks with the given interval
+	 *
+	 * @param interval
+	 * @return
+	 */
+	public static TickScheduler forInterval(long interval) {
+		TickScheduler scheduler = schedulers.get(interval);
+		if (scheduler == null) {
+			scheduler = new TickScheduler(interval,
+					FloodingNodeFactory.TICK_INTERVAL);
+			schedulers.put(interval, scheduler);
+		}
+		return scheduler;
+	}
+
+	/**
+	 * Drops all schedulers (and their tasks) of a previous run
+	 */
+	public static void reset() {
+		schedulers.clear();
+	}
+
+	/**
+	 * Adds the task, it is executed for the first time within the given
+	 * jitter and then once per interval.
+	 *
+	 * @param task
+	 * @param jitter
+	 *            capped by the interval
+	 */
+	public void add(Task task, long jitter) {
+		remove(task);
+		int range = (int) Math.min(buckets.length,
+				Math.max(1, jitter / tickInterval));
+		int bucket = (cursor + random.nextInt(range)) % buckets.length;
+		buckets[bucket].add(task);
+		bucketOf.put(task, bucket);
+		if (!running) {
+			running = true;
+			Event.scheduleWithDelay(tickInterval, this, null, 0);
+		}
+	}
+
+	/**
+	 * Removes the task
+	 *
+	 * @param task
+	 * @return false, if it was not scheduled
+	 */
+	public boolean remove(Task task) {
+		Integer bucket = bucketOf.remove(task);
+		if (bucket == null) {
+			return false;
+		}
+		buckets[bucket].remove(task);
+		return true;
+	}
+
+	public boolean contains(Task task) {
+		return bucketOf.containsKey(task);
+	}
+
+	/**
+	 * Number of scheduled tasks
+	 *
+	 * @return
+	 */
+	public int size() {
+		return bucketOf.size();
+	}
+
+	@Override
+	public void eventOccurred(Object content, int type) {
+		int current = cursor;
+		cursor = (cursor + 1) % buckets.length;
+		IndexedSet<Task> bucket = buckets[current];
+		int n = bucket.size();
+		if (n > buffer.length) {
+			buffer = new Task[Math.max(n, buffer.length * 2)];
+		}
+		for (int i = 0; i < n; i++) {
+			buffer[i] = bucket.get(i);
+		}
+		for (int i = 0; i < n; i++) {
+			Task task = buffer[i];
+			buffer[i] = null;
+			// might have been removed by a previous task
+			Integer b = bucketOf.get(task);
+			if (b != null && b == current) {
+				task.tick();
+			}
+		}
+		if (bucketOf.isEmpty()) {
+			running = false;
+		} else {
+			Event.scheduleWithDelay(tickInterval, this, null, 0);
+		}
+	}
+
+}
@@ -0,0 +1,30 @@
+package de.tudarmstadt.maki.simonstrator.overlay.flooding.analyzer;
+
+import de.tudarmstadt.maki.simonstrator.api.component.core.MonitorComponent.Analyzer;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingContact;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingNode;
+
+/**
+ * Informed by each {@link FloodingNode} whenever its set of connected
+ * neighbors changes. This allows analyzers to maintain the overlay topology
+ * incrementally instead of scanning all nodes.
+ */
+public interface IFloodingTopologyAnalyzer extends Analyzer {
+
+	/**
+	 * The given node added a connection to the neighbor
+	 *
+	 * @param node
+	 * @param neighbor
+	 */
+	public void onNeighborAdded(FloodingNode node, FloodingContact neighbor);
+
+	/**
+	 * The given node removed its connection to the neighbor
+	 *
+	 * @param node
+	 * @param neighbor
+	 */
+	public void onNeighborRemoved(FloodingNode node, FloodingContact neighbor);
+
+}
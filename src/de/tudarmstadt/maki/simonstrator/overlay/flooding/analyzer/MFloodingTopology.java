@@ -0,0 +1,139 @@
+package de.tudarmstadt.maki.simonstrator.overlay.flooding.analyzer;
+
+import java.util.List;
+
+import de.tudarmstadt.maki.simonstrator.api.Host;
+import de.tudarmstadt.maki.simonstrator.api.Monitor;
+import de.tudarmstadt.maki.simonstrator.api.common.metric.AbstractMetric;
+import de.tudarmstadt.maki.simonstrator.api.common.metric.Metric.MetricValue;
+import de.tudarmstadt.maki.simonstrator.api.component.core.MonitorComponent.AnalyzerNotAvailableException;
+
+/**
+ * Overall metrics of the flooding mesh, read from the shared
+ * {@link TopologyStatistics}. The statistics are registered as analyzer by
+ * the first of these metrics, all others use the same instance.
+ */
+public abstract class MFloodingTopology extends
+		AbstractMetric<MetricValue<Double>> implements MetricValue<Double> {
+
+	protected final TopologyStatistics statistics;
+
+	public MFloodingTopology(String description) {
+		super(description, MetricUnit.NONE);
+		TopologyStatistics stats;
+		try {
+			stats = Monitor.get(TopologyStatistics.class);
+		} catch (AnalyzerNotAvailableException e) {
+			stats = new TopologyStatistics();
+			Monitor.registerAnalyzer(stats);
+		}
+		this.statistics = stats;
+	}
+
+	@Override
+	public void initialize(List<Host> hosts) {
+		setOverallMetric(this);
+	}
+
+	@Override
+	public boolean isValid() {
+		return true;
+	}
+
+	public static class AverageDegree extends MFloodingTopology {
+
+		public AverageDegree() {
+			super("Average number of connected neighbors");
+		}
+
+		@Override
+		public Double getValue() {
+			return statistics.getAverageDegree();
+		}
+	}
+
+	public static class MaxDegree extends MFloodingTopology {
+
+		public MaxDegree() {
+			super("Maximum number of connected neighbors");
+		}
+
+		@Override
+		public Double getValue() {
+			return (double) statistics.getMaxDegree();
+		}
+	}
+
+	public static class Components extends MFloodingTopology {
+
+		public Components() {
+			super("Number of connected components");
+		}
+
+		@Override
+		public Double getValue() {
+			return (double) statistics.getNumComponents();
+		}
+	}
+
+	public static class LargestComponent extends MFloodingTopology {
+
+		public LargestComponent() {
+			super("Number of nodes in the largest connected component");
+		}
+
+		@Override
+		public Double getValue() {
+			return (double) statistics.getLargestComponentSize();
+		}
+	}
+
+	public static class ClusteringCoefficient extends MFloodingTopology {
+
+		public ClusteringCoefficient() {
+			super("Average local clustering coefficient");
+		}
+
+		@Override
+		public Double getValue() {
+			return statistics.getAverageClusteringCoefficient();
+		}
+	}
+
+	public static class Transitivity extends MFloodingTopology {
+
+		public Transitivity() {
+			super("Global clustering coefficient");
+		}
+
+		@Override
+		public Double getValue() {
+			return statistics.getTransitivity();
+		}
+	}
+
+	public static class Diameter extends MFloodingTopology {
+
+		public Diameter() {
+			super("Sampled diameter");
+		}
+
+		@Override
+		public Double getValue() {
+			return (double) statistics.getSampledDiameter();
+		}
+	}
+
+	public static class Eccentricity extends MFloodingTopology {
+
+		public Eccentricity() {
+			super("Average eccentricity of sampled nodes");
+		}
+
+		@Override
+		public Double getValue() {
+			return statistics.getAverageEccentricity();
+		}
+	}
+
+}
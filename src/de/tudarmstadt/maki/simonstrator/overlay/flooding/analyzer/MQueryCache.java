@@ -0,0 +1,89 @@
+package de.tudarmstadt.maki.simonstrator.overlay.flooding.analyzer;
+
+import java.util.List;
+
+import de.tudarmstadt.maki.simonstrator.api.Host;
+import de.tudarmstadt.maki.simonstrator.api.common.metric.AbstractMetric;
+import de.tudarmstadt.maki.simonstrator.api.common.metric.Metric.MetricValue;
+import de.tudarmstadt.maki.simonstrator.api.component.ComponentNotAvailableException;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingNode;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingNodeRegistry;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.QueryHandler;
+
+/**
+ * Hits and misses of the query response caches (see {@link QueryHandler}),
+ * per host and summed over all nodes. Use a delta filter to obtain rates.
+ */
+public abstract class MQueryCache extends AbstractMetric<MetricValue<Double>> {
+
+	public MQueryCache(String description) {
+		super(description, MetricUnit.NONE);
+	}
+
+	@Override
+	public void initialize(List<Host> hosts) {
+		for (Host host : hosts) {
+			final FloodingNode node;
+			try {
+				node = host.getComponent(FloodingNode.class);
+			} catch (ComponentNotAvailableException e) {
+				continue;
+			}
+			addHost(host, new MetricValue<Double>() {
+
+				@Override
+				public Double getValue() {
+					return (double) getCount(node.getQueryHandler());
+				}
+
+				@Override
+				public boolean isValid() {
+					return true;
+				}
+			});
+		}
+		setOverallMetric(new MetricValue<Double>() {
+
+			@Override
+			public Double getValue() {
+				long sum = 0;
+				for (FloodingNode node : FloodingNodeRegistry.snapshot()) {
+					sum += getCount(node.getQueryHandler());
+				}
+				return (double) sum;
+			}
+
+			@Override
+			public boolean isValid() {
+				return true;
+			}
+		});
+	}
+
+	protected abstract long getCount(QueryHandler handler);
+
+	public static class Hits extends MQueryCache {
+
+		public Hits() {
+			super("Queries answered from the response cache");
+		}
+
+		@Override
+		protected long getCount(QueryHandler handler) {
+			return handler.getCacheHits();
+		}
+	}
+
+	public static class Misses extends MQueryCache {
+
+		public Misses() {
+			super("Queries forwarded due to a response cache miss");
+		}
+
+		@Override
+		protected long getCount(QueryHandler handler) {
+			return handler.getCacheMisses();
+		}
+	}
+
+}
@@ -0,0 +1,537 @@
+package de.tudarmstadt.maki.simonstrator.overlay.flooding.analyzer;
+
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Random;
+
+import de.tudarmstadt.maki.simonstrator.api.Randoms;
+import de.tudarmstadt.maki.simonstrator.api.Time;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingContact;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingNode;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingNodeRegistry;
+
+/**
+ * Maintains statistics of the (undirected) flooding mesh incrementally from
+ * the neighbor events of all nodes. Nodes are addressed by their index in the
+ * {@link FloodingNodeRegistry}, an edge exists as long as at least one of the
+ * two nodes lists the other as connected neighbor.
+ *
+ * <ul>
+ * <li>Degree distribution: histogram updated on each edge change</li>
+ * <li>Clustering: triangle count per node, updated by intersecting the
+ * (small) neighbor lists of the two endpoints of a changed edge</li>
+ * <li>Connected components: union-find on edge insertion. Removing an edge
+ * that is part of a triangle cannot split a component; any other removal
+ * marks the components dirty, they are rebuilt on the next read.</li>
+ * <li>Diameter and eccentricity: estimated by BFS from
+ * {@link #DIAMETER_SAMPLES} random nodes, at most once per
+ * {@link #SAMPLE_INTERVAL}</li>
+ * </ul>
+ */
+public class TopologyStatistics implements IFloodingTopologyAnalyzer {
+
+	/**
+	 * Number of BFS roots for the diameter estimation
+	 */
+	public static final int DIAMETER_SAMPLES = 16;
+
+	/**
+	 * Minimal simulation time between two diameter estimations
+	 */
+	public static final long SAMPLE_INTERVAL = 1 * Time.MINUTE;
+
+	private final Random random = Randoms.getRandom(TopologyStatistics.class);
+
+	/**
+	 * Number of nodes known to the statistics (registry size)
+	 */
+	private int numNodes = 0;
+
+	/**
+	 * Neighbor indices per node, the first deg[i] entries are valid
+	 */
+	private int[][] adjacency = new int[0][];
+
+	/**
+	 * Number of directions (1 or 2) each edge in adjacency is listed in
+	 */
+	private int[][] multiplicity = new int[0][];
+
+	private int[] degree = new int[0];
+
+	/**
+	 * Number of triangles each node is part of
+	 */
+	private int[] triangles = new int[0];
+
+	/**
+	 * Nodes per degree, index 0 is not maintained
+	 */
+	private int[] degreeCount = new int[16];
+
+	private int nodesWithEdges = 0;
+
+	private int maxDegree = 0;
+
+	private long numEdges = 0;
+
+	private long numTriangles = 0;
+
+	/**
+	 * Sum over all nodes of deg * (deg - 1) / 2
+	 */
+	private long numTriples = 0;
+
+	private double[] localClustering = new double[0];
+
+	/**
+	 * Sum of the local clustering coefficients of all nodes
+	 */
+	private double sumLocalClustering = 0;
+
+	private int[] parent = new int[0];
+
+	private int[] componentSize = new int[0];
+
+	private int numComponents = 0;
+
+	private int largestComponent = 0;
+
+	private boolean componentsDirty = false;
+
+	private int[] bfsQueue = new int[0];
+
+	private int[] bfsMark = new int[0];
+
+	private int bfsEpoch = 0;
+
+	private long lastDiameterSample = -1;
+
+	private int diameter = 0;
+
+	private double averageEccentricity = 0;
+
+	@Override
+	public void onNeighborAdded(FloodingNode node, FloodingContact neighbor) {
+		int v = indexOf(neighbor);
+		int u = node.getRegistryIndex();
+		if (v < 0 || u == v) {
+			return;
+		}
+		ensureNodes(Math.max(u, v) + 1);
+		int pos = find(u, v);
+		if (pos >= 0) {
+			multiplicity[u][pos]++;
+			multiplicity[v][find(v, u)]++;
+		} else {
+			insertEdge(u, v);
+		}
+	}
+
+	@Override
+	public void onNeighborRemoved(FloodingNode node, FloodingContact neighbor) {
+		int v = indexOf(neighbor);
+		int u = node.getRegistryIndex();
+		if (v < 0 || u == v || Math.max(u, v) >= numNodes) {
+			return;
+		}
+		int pos = find(u, v);
+		if (pos < 0) {
+			return;
+		}
+		if (--multiplicity[u][pos] == 0) {
+			removeEdge(u, v);
+		} else {
+			multiplicity[v][find(v, u)]--;
+		}
+	}
+
+	private static int indexOf(FloodingContact contact) {
+		FloodingNode node = FloodingNodeRegistry.getNode(contact.getNodeID());
+		return node == null ? -1 : node.getRegistryIndex();
+	}
+
+	private void insertEdge(int u, int v) {
+		int common = countCommonNeighbors(u, v, +1);
+		append(u, v);
+		append(v, u);
+		numEdges++;
+		numTriangles += common;
+		triangles[u] += common;
+		triangles[v] += common;
+		updateDegree(u, +1);
+		updateDegree(v, +1);
+		updateLocalClustering(u);
+		updateLocalClustering(v);
+		if (!componentsDirty) {
+			union(u, v);
+		}
+	}
+
+	private void removeEdge(int u, int v) {
+		delete(u, v);
+		delete(v, u);
+		int common = countCommonNeighbors(u, v, -1);
+		numEdges--;
+		numTriangles -= common;
+		triangles[u] -= common;
+		triangles[v] -= common;
+		updateDegree(u, -1);
+		updateDegree(v, -1);
+		updateLocalClustering(u);
+		updateLocalClustering(v);
+		if (common == 0) {
+			// u and v might no longer be connected
+			componentsDirty = true;
+		}
+	}
+
+	/**
+	 * Counts the common neighbors of u and v and adds delta to their triangle
+	 * counts (the edge between u and v must not be listed).
+	 */
+	private int countCommonNeighbors(int u, int v, int delta) {
+		if (degree[u] > degree[v]) {
+			int tmp = u;
+			u = v;
+			v = tmp;
+		}
+		int common = 0;
+		int[] adj = adjacency[u];
+		for (int i = 0; i < degree[u]; i++) {
+			int w = adj[i];
+			if (find(v, w) >= 0) {
+				common++;
+				triangles[w] += delta;
+				updateLocalClustering(w);
+			}
+		}
+		return common;
+	}
+
+	private int find(int u, int v) {
+		int[] adj = adjacency[u];
+		for (int i = 0; i < degree[u]; i++) {
+			if (adj[i] == v) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private void append(int u, int v) {
+		int d = degree[u];
+		if (d == adjacency[u].length) {
+			adjacency[u] = Arrays.copyOf(adjacency[u], Math.max(4, d * 2));
+			multiplicity[u] = Arrays.copyOf(multiplicity[u], Math.max(4, d * 2));
+		}
+		adjacency[u][d] = v;
+		multiplicity[u][d] = 1;
+		degree[u] = d + 1;
+	}
+
+	private void delete(int u, int v) {
+		int pos = find(u, v);
+		int last = degree[u] - 1;
+		adjacency[u][pos] = adjacency[u][last];
+		multiplicity[u][pos] = multiplicity[u][last];
+		degree[u] = last;
+	}
+
+	/**
+	 * Updates histogram and triple count after the degree of u changed by
+	 * delta (degree[u] already is the new degree)
+	 */
+	private void updateDegree(int u, int delta) {
+		int newDegree = degree[u];
+		int oldDegree = newDegree - delta;
+		if (oldDegree > 0) {
+			degreeCount[oldDegree]--;
+		} else {
+			nodesWithEdges++;
+		}
+		if (newDegree > 0) {
+			if (newDegree >= degreeCount.length) {
+				degreeCount = Arrays.copyOf(degreeCount, newDegree * 2);
+			}
+			degreeCount[newDegree]++;
+		} else {
+			nodesWithEdges--;
+		}
+		if (newDegree > maxDegree) {
+			maxDegree = newDegree;
+		} else if (oldDegree == maxDegree && degreeCount[oldDegree] == 0) {
+			while (maxDegree > 0 && degreeCount[maxDegree] == 0) {
+				maxDegree--;
+			}
+		}
+		// C(d+1,2) - C(d,2) = d
+		numTriples += delta > 0 ? oldDegree : -newDegree;
+	}
+
+	private void updateLocalClustering(int u) {
+		int d = degree[u];
+		double value = d < 2 ? 0 : 2.0 * triangles[u] / (d * (d - 1.0));
+		sumLocalClustering += value - localClustering[u];
+		localClustering[u] = value;
+	}
+
+	/*
+	 * Union-find
+	 */
+
+	private int root(int u) {
+		while (parent[u] != u) {
+			parent[u] = parent[parent[u]];
+			u = parent[u];
+		}
+		return u;
+	}
+
+	private void union(int u, int v) {
+		int ru = root(u);
+		int rv = root(v);
+		if (ru == rv) {
+			return;
+		}
+		if (componentSize[ru] < componentSize[rv]) {
+			int tmp = ru;
+			ru = rv;
+			rv = tmp;
+		}
+		parent[rv] = ru;
+		componentSize[ru] += componentSize[rv];
+		numComponents--;
+		if (componentSize[ru] > largestComponent) {
+			largestComponent = componentSize[ru];
+		}
+	}
+
+	private void rebuildComponents() {
+		numComponents = numNodes;
+		largestComponent = numNodes > 0 ? 1 : 0;
+		for (int i = 0; i < numNodes; i++) {
+			parent[i] = i;
+			componentSize[i] = 1;
+		}
+		for (int u = 0; u < numNodes; u++) {
+			int[] adj = adjacency[u];
+			for (int i = 0; i < degree[u]; i++) {
+				if (adj[i] > u) {
+					union(u, adj[i]);
+				}
+			}
+		}
+		componentsDirty = false;
+	}
+
+	/**
+	 * Grows all per-node arrays, new nodes are isolated
+	 */
+	private void ensureNodes(int n) {
+		if (n <= numNodes) {
+			return;
+		}
+		if (n > degree.length) {
+			int capacity = Math.max(n, degree.length * 2);
+			int oldCapacity = degree.length;
+			adjacency = Arrays.copyOf(adjacency, capacity);
+			multiplicity = Arrays.copyOf(multiplicity, capacity);
+			for (int i = oldCapacity; i < capacity; i++) {
+				adjacency[i] = new int[0];
+				multiplicity[i] = new int[0];
+			}
+			degree = Arrays.copyOf(degree, capacity);
+			triangles = Arrays.copyOf(triangles, capacity);
+			localClustering = Arrays.copyOf(localClustering, capacity);
+			parent = Arrays.copyOf(parent, capacity);
+			componentSize = Arrays.copyOf(componentSize, capacity);
+			bfsQueue = new int[capacity];
+			bfsMark = Arrays.copyOf(bfsMark, capacity);
+		}
+		for (int i = numNodes; i < n; i++) {
+			parent[i] = i;
+			componentSize[i] = 1;
+		}
+		numComponents += n - numNodes;
+		if (largestComponent == 0) {
+			largestComponent = 1;
+		}
+		numNodes = n;
+	}
+
+	/**
+	 * Includes nodes that were created but have no connections yet
+	 */
+	private void syncNodes() {
+		ensureNodes(FloodingNodeRegistry.snapshot().size());
+	}
+
+	/*
+	 * Diameter sampling
+	 */
+
+	private void sampleDiameterIfDue() {
+		long now = Time.getCurrentTime();
+		if (lastDiameterSample >= 0 && now - lastDiameterSample < SAMPLE_INTERVAL) {
+			return;
+		}
+		lastDiameterSample = now;
+		diameter = 0;
+		averageEccentricity = 0;
+		if (nodesWithEdges == 0) {
+			return;
+		}
+		int samples = 0;
+		long eccentricitySum = 0;
+		for (int i = 0; i < DIAMETER_SAMPLES * 4
+				&& samples < DIAMETER_SAMPLES; i++) {
+			int root = random.nextInt(numNodes);
+			if (degree[root] == 0) {
+				continue;
+			}
+			int eccentricity = bfs(root);
+			eccentricitySum += eccentricity;
+			diameter = Math.max(diameter, eccentricity);
+			samples++;
+		}
+		if (samples > 0) {
+			averageEccentricity = (double) eccentricitySum / samples;
+		}
+	}
+
+	/**
+	 * Breadth-first search without allocations, nodes are marked with the
+	 * current epoch instead of clearing a visited array.
+	 *
+	 * @return the eccentricity of root within its component
+	 */
+	private int bfs(int root) {
+		if (++bfsEpoch == Integer.MAX_VALUE) {
+			Arrays.fill(bfsMark, 0);
+			bfsEpoch = 1;
+		}
+		int head = 0;
+		int tail = 0;
+		int depth = 0;
+		bfsQueue[tail++] = root;
+		bfsMark[root] = bfsEpoch;
+		int levelEnd = tail;
+		while (head < tail) {
+			int u = bfsQueue[head++];
+			int[] adj = adjacency[u];
+			for (int i = 0; i < degree[u]; i++) {
+				int w = adj[i];
+				if (bfsMark[w] != bfsEpoch) {
+					bfsMark[w] = bfsEpoch;
+					bfsQueue[tail++] = w;
+				}
+			}
+			if (head == levelEnd && head < tail) {
+				depth++;
+				levelEnd = tail;
+			}
+		}
+		return depth;
+	}
+
+	/*
+	 * Read access
+	 */
+
+	public int getNumNodes() {
+		syncNodes();
+		return numNodes;
+	}
+
+	public long getNumEdges() {
+		return numEdges;
+	}
+
+	public double getAverageDegree() {
+		syncNodes();
+		return numNodes == 0 ? 0 : 2.0 * numEdges / numNodes;
+	}
+
+	public int getMaxDegree() {
+		return maxDegree;
+	}
+
+	/**
+	 * Number of nodes per degree (index), including isolated nodes
+	 *
+	 * @return a copy of the histogram
+	 */
+	public int[] getDegreeDistribution() {
+		syncNodes();
+		int[] distribution = Arrays.copyOf(degreeCount, maxDegree + 1);
+		distribution[0] = numNodes - nodesWithEdges;
+		return distribution;
+	}
+
+	/**
+	 * Average local clustering coefficient of all nodes with degree of at
+	 * least two
+	 *
+	 * @return
+	 */
+	public double getAverageClusteringCoefficient() {
+		int candidates = nodesWithEdges
+				- (degreeCount.length > 1 ? degreeCount[1] : 0);
+		return candidates == 0 ? 0 : sumLocalClustering / candidates;
+	}
+
+	/**
+	 * Global clustering coefficient: closed triplets over all triplets
+	 *
+	 * @return
+	 */
+	public double getTransitivity() {
+		return numTriples == 0 ? 0 : 3.0 * numTriangles / numTriples;
+	}
+
+	public int getNumComponents() {
+		syncNodes();
+		if (componentsDirty) {
+			rebuildComponents();
+		}
+		return numComponents;
+	}
+
+	public int getLargestComponentSize() {
+		syncNodes();
+		if (componentsDirty) {
+			rebuildComponents();
+		}
+		return largestComponent;
+	}
+
+	/**
+	 * Largest eccentricity of the sampled nodes, a lower bound of the
+	 * diameter of the largest components
+	 *
+	 * @return
+	 */
+	public int getSampledDiameter() {
+		syncNodes();
+		sampleDiameterIfDue();
+		return diameter;
+	}
+
+	public double getAverageEccentricity() {
+		syncNodes();
+		sampleDiameterIfDue();
+		return averageEccentricity;
+	}
+
+	@Override
+	public void start() {
+		// nothing to do
+	}
+
+	@Override
+	public void stop(Writer out) {
+		// nothing to do
+	}
+
+}
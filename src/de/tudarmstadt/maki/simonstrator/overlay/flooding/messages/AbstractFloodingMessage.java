@@ -1,10 +1,20 @@
 package de.tudarmstadt.maki.simonstrator.overlay.flooding.messages;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
 import de.tudarmstadt.maki.simonstrator.api.Message;
 import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingContact;
 
 /**
  * The base message for all flooding messages. 
+ * 
+ * Messages are immutable: contact lists are copied on construction and the
+ * transmission size is computed once, as analyzers call {@link #getSize()}
+ * several times per message. Extending messages pass the size of their
+ * content to {@link #AbstractFloodingMessage(FloodingContact, long)}.
  */
 public abstract class AbstractFloodingMessage implements FloodingMessage {
 
@@ -12,6 +22,8 @@ public abstract class AbstractFloodingMessage implements FloodingMessage {
 
 	private final FloodingContact sender;
 
+	private final long size;
+
 	/**
 	 * A marker, if this message is to be replied to via sendReply()
 	 */
@@ -23,7 +35,19 @@ public abstract class AbstractFloodingMessage implements FloodingMessage {
 	 *            this will be cloned
 	 */
 	public AbstractFloodingMessage(FloodingContact sender) {
+		this(sender, 0);
+	}
+
+	/**
+	 * 
+	 * @param sender
+	 * @param contentSize
+	 *            size of the content of the extending message (without the
+	 *            sender)
+	 */
+	protected AbstractFloodingMessage(FloodingContact sender, long contentSize) {
 		this.sender = sender;
+		this.size = sender.getTransmissionSize() + contentSize;
 	}
 
 	@Override
@@ -42,8 +66,8 @@ public abstract class AbstractFloodingMessage implements FloodingMessage {
 	}
 
 	@Override
-	public long getSize() {
-		return sender.getTransmissionSize();
+	public final long getSize() {
+		return size;
 	}
 
 	@Override
@@ -54,4 +78,33 @@ public abstract class AbstractFloodingMessage implements FloodingMessage {
 		return null;
 	}
 
+	/**
+	 * Unmodifiable copy of the given contacts
+	 * 
+	 * @param contacts
+	 * @return
+	 */
+	protected static List<FloodingContact> snapshot(
+			Collection<FloodingContact> contacts) {
+		if (contacts.isEmpty()) {
+			return Collections.emptyList();
+		}
+		return Collections.unmodifiableList(new ArrayList<FloodingContact>(
+				contacts));
+	}
+
+	/**
+	 * Summed transmission size of the given contacts
+	 * 
+	 * @param contacts
+	 * @return
+	 */
+	protected static long sizeOf(Collection<FloodingContact> contacts) {
+		long size = 0;
+		for (FloodingContact c : contacts) {
+			size += c.getTransmissionSize();
+		}
+		return size;
+	}
+
 }
@@ -0,0 +1,77 @@
+package de.tudarmstadt.maki.simonstrator.overlay.flooding.messages;
+
+import de.tudarmstadt.maki.simonstrator.api.Message;
+import de.tudarmstadt.maki.simonstrator.overlay.AbstractOverlayMessage;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingContact;
+
+/**
+ * Base for flooding messages that belong to an operation (e.g., a search).
+ * In contrast to {@link AbstractFloodingMessage}, these messages carry the
+ * operation ID (see {@link AbstractOverlayMessage}), so that the
+ * OverlayOperationAnalyzer can attribute their traffic to the operation. Use
+ * the forward/reply-constructor to pass the ID along on each hop.
+ */
+public abstract class AbstractOperationMessage extends AbstractOverlayMessage
+		implements FloodingMessage {
+
+	private static final long serialVersionUID = -2281403795512406911L;
+
+	private final long contentSize;
+
+	private boolean wantsReply = false;
+
+	/**
+	 * A new message on behalf of the given operation
+	 *
+	 * @param sender
+	 * @param operationID
+	 * @param contentSize
+	 *            size of the content of the extending message (without the
+	 *            sender)
+	 */
+	protected AbstractOperationMessage(FloodingContact sender, int operationID,
+			long contentSize) {
+		super(sender, null, operationID);
+		this.contentSize = contentSize;
+	}
+
+	/**
+	 * Forward- or reply-constructor: the operation ID of the received message
+	 * is used
+	 *
+	 * @param sender
+	 * @param receivedMsg
+	 * @param contentSize
+	 */
+	protected AbstractOperationMessage(FloodingContact sender,
+			AbstractOverlayMessage receivedMsg, long contentSize) {
+		super(sender, null, receivedMsg);
+		this.contentSize = contentSize;
+	}
+
+	@Override
+	public void setWantsReply() {
+		wantsReply = true;
+	}
+
+	@Override
+	public boolean wantsReply() {
+		return wantsReply;
+	}
+
+	@Override
+	public FloodingContact getSenderContact() {
+		return (FloodingContact) getSender();
+	}
+
+	@Override
+	public long getSize() {
+		return super.getSize() + contentSize;
+	}
+
+	@Override
+	public Message getPayload() {
+		return null;
+	}
+
+}
@@ -0,0 +1,106 @@
+package de.tudarmstadt.maki.simonstrator.overlay.flooding.messages;
+
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingContact;
+
+/**
+ * Update of the attenuated Bloom filter the sender advertises to the
+ * receiver. Either the full filter or only the words that changed since the
+ * previous update are sent (whichever is smaller). Updates are numbered per
+ * receiver, so that the receiver can detect lost updates and request the
+ * full filter.
+ */
+public class BloomUpdateMessage extends AbstractFloodingMessage {
+
+	private static final long serialVersionUID = 6044226542659215837L;
+
+	/**
+	 * version (4 byte) and flags (1 byte)
+	 */
+	private static final int HEADER_SIZE = 5;
+
+	/**
+	 * Index of a changed word
+	 */
+	public static final int INDEX_SIZE = 2;
+
+	private final int version;
+
+	private final boolean full;
+
+	private final boolean requestFull;
+
+	private final int[] indices;
+
+	private final long[] words;
+
+	/**
+	 *
+	 * @param sender
+	 * @param version
+	 *            number of this update
+	 * @param requestFull
+	 *            the sender missed an update of the receiver
+	 * @param indices
+	 *            indices of the changed words, null for a full update
+	 * @param words
+	 *            the changed words or all words
+	 */
+	public BloomUpdateMessage(FloodingContact sender, int version,
+			boolean requestFull, int[] indices, long[] words) {
+		super(sender, HEADER_SIZE + (indices == null ? 0 : indices.length
+				* INDEX_SIZE) + words.length * 8);
+		this.version = version;
+		this.full = indices == null;
+		this.requestFull = requestFull;
+		this.indices = indices;
+		this.words = words;
+	}
+
+	public int getVersion() {
+		return version;
+	}
+
+	/**
+	 * True, if all words of the filter are contained
+	 *
+	 * @return
+	 */
+	public boolean isFull() {
+		return full;
+	}
+
+	/**
+	 * True, if the sender wants to receive our full filter with the next
+	 * update
+	 *
+	 * @return
+	 */
+	public boolean isRequestFull() {
+		return requestFull;
+	}
+
+	/**
+	 * Indices of the changed words (must not be modified), null if full
+	 *
+	 * @return
+	 */
+	public int[] getIndices() {
+		return indices;
+	}
+
+	/**
+	 * The words (must not be modified)
+	 *
+	 * @return
+	 */
+	public long[] getWords() {
+		return words;
+	}
+
+	@Override
+	public String toString() {
+		return "BLOOM-UPDATE v" + version + (full ? " full" : " delta:")
+				+ (full ? "" : indices.length);
+	}
+
+}
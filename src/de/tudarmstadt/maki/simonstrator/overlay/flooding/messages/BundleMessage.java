@@ -0,0 +1,55 @@
+package de.tudarmstadt.maki.simonstrator.overlay.flooding.messages;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingContact;
+
+/**
+ * Several {@link FloodingMessage}s to the same destination, sent as one
+ * datagram. All contained messages are sent by the sender of the bundle, its
+ * contact is therefore only accounted for once. Each message is prefixed by
+ * its length ({@link #FRAME_SIZE}).
+ */
+public class BundleMessage extends AbstractFloodingMessage {
+
+	private static final long serialVersionUID = 4470317390385215376L;
+
+	/**
+	 * Length prefix of each contained message
+	 */
+	public static final int FRAME_SIZE = 2;
+
+	private final List<FloodingMessage> messages;
+
+	public BundleMessage(FloodingContact sender, List<FloodingMessage> messages) {
+		super(sender, getContentSize(sender, messages));
+		this.messages = Collections
+				.unmodifiableList(new ArrayList<FloodingMessage>(messages));
+	}
+
+	private static long getContentSize(FloodingContact sender,
+			List<FloodingMessage> messages) {
+		long size = 0;
+		for (FloodingMessage msg : messages) {
+			size += msg.getSize() - sender.getTransmissionSize() + FRAME_SIZE;
+		}
+		return size;
+	}
+
+	/**
+	 * The bundled messages in the order they were sent
+	 * 
+	 * @return
+	 */
+	public List<FloodingMessage> getMessages() {
+		return messages;
+	}
+
+	@Override
+	public String toString() {
+		return "BUNDLE messages:" + messages.size();
+	}
+
+}
@@ -1,33 +1,77 @@
 package de.tudarmstadt.maki.simonstrator.overlay.flooding.messages;
 
 
-import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingContact;
-import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingNode;
-
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
-import java.util.Set;
 
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingContact;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.NeighborDigest;
+
+/**
+ * Connect request. Depending on the configured neighbor exchange, it carries
+ * nothing, the full contacts of the sender's neighbors or only a digest of
+ * their IDs (see {@link NeighborDigest}).
+ */
 public class ConnectPeersMessage extends AbstractFloodingMessage{
 
-  private final Set<FloodingContact> neighbors;
+  private final List<FloodingContact> neighbors;
+
+  private final int[] digest;
+
+  /**
+   * Request without neighbor exchange
+   * 
+   * @param sender
+   */
+  public ConnectPeersMessage(FloodingContact sender) {
+    this(sender, Collections.<FloodingContact> emptyList(), null);
+  }
+
+  /**
+   * Request carrying the full contacts of the given neighbors (a snapshot is
+   * taken)
+   * 
+   * @param sender
+   * @param neighbors
+   */
+  public ConnectPeersMessage(FloodingContact sender, Collection<FloodingContact> neighbors) {
+    this(sender, snapshot(neighbors), null);
+  }
+
+  /**
+   * Request carrying a digest of the sender's neighbors
+   * 
+   * @param sender
+   * @param digest
+   */
+  public ConnectPeersMessage(FloodingContact sender, int[] digest) {
+    this(sender, Collections.<FloodingContact> emptyList(), digest.clone());
+  }
 
-  public ConnectPeersMessage(FloodingContact sender, Set<FloodingContact> neighbors) {
-    super(sender);
+  private ConnectPeersMessage(FloodingContact sender, List<FloodingContact> neighbors, int[] digest) {
+    super(sender, sizeOf(neighbors)
+        + (digest == null ? 0 : digest.length * NeighborDigest.ENTRY_SIZE));
     this.neighbors = neighbors;
+    this.digest = digest;
   }
 
-  public Set<FloodingContact> getNeighbors() {
+  /**
+   * Full contacts of the sender's neighbors (empty, if not sent)
+   * 
+   * @return
+   */
+  public List<FloodingContact> getNeighbors() {
     return neighbors;
   }
 
-  @Override
-  public long getSize() {
-    long size = super.getSize();
-    if (FloodingNode.FLAG_LAST_TASK) {
-      for (FloodingContact fc : neighbors) {
-        size += fc.getTransmissionSize();
-      }
-    }
-    return size;
+  /**
+   * Digest of the sender's neighbors or null, if not sent. Must not be
+   * modified.
+   * 
+   * @return
+   */
+  public int[] getDigest() {
+    return digest;
   }
 }
@@ -0,0 +1,23 @@
+package de.tudarmstadt.maki.simonstrator.overlay.flooding.messages;
+
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingContact;
+
+/**
+ * Tears down the connection between sender and receiver, the receiver frees
+ * the connection slot. Used, for example, to cancel surplus acceptances of
+ * pipelined connect requests.
+ */
+public class DisconnectMessage extends AbstractFloodingMessage {
+
+	private static final long serialVersionUID = 7720473371203317958L;
+
+	public DisconnectMessage(FloodingContact sender) {
+		super(sender);
+	}
+
+	@Override
+	public String toString() {
+		return "DISCONNECT " + getSenderContact().toString();
+	}
+
+}
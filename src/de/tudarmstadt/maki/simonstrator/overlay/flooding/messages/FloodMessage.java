@@ -0,0 +1,110 @@
+package de.tudarmstadt.maki.simonstrator.overlay.flooding.messages;
+
+import de.tudarmstadt.maki.simonstrator.api.Message;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingContact;
+
+/**
+ * A data message that is flooded over the mesh of connected neighbors. The
+ * message is identified by its origin and a sequence number (used for
+ * duplicate suppression), the TTL is decremented on each hop.
+ */
+public class FloodMessage extends AbstractFloodingMessage {
+
+	private static final long serialVersionUID = -1698342750913361523L;
+
+	/**
+	 * sequence number (4 byte), TTL and hop count (1 byte each)
+	 */
+	private static final int HEADER_SIZE = 6;
+
+	private final FloodingContact origin;
+
+	private final int sequenceNumber;
+
+	private final int ttl;
+
+	private final int hopCount;
+
+	private final Message payload;
+
+	/**
+	 * Creates a new flood at the origin
+	 *
+	 * @param origin
+	 * @param sequenceNumber
+	 * @param ttl
+	 * @param payload
+	 */
+	public FloodMessage(FloodingContact origin, int sequenceNumber, int ttl,
+			Message payload) {
+		super(origin, getContentSize(origin, payload));
+		this.origin = origin;
+		this.sequenceNumber = sequenceNumber;
+		this.ttl = ttl;
+		this.hopCount = 0;
+		this.payload = payload;
+	}
+
+	/**
+	 * Forward-constructor: decrements the TTL and increments the hop count of
+	 * the received message.
+	 *
+	 * @param sender
+	 *            the forwarding node
+	 * @param received
+	 */
+	public FloodMessage(FloodingContact sender, FloodMessage received) {
+		super(sender, getContentSize(received.origin, received.payload));
+		this.origin = received.origin;
+		this.sequenceNumber = received.sequenceNumber;
+		this.ttl = received.ttl - 1;
+		this.hopCount = received.hopCount + 1;
+		this.payload = received.payload;
+	}
+
+	public FloodingContact getOrigin() {
+		return origin;
+	}
+
+	public int getSequenceNumber() {
+		return sequenceNumber;
+	}
+
+	/**
+	 * Remaining number of hops this message may be forwarded
+	 *
+	 * @return
+	 */
+	public int getTTL() {
+		return ttl;
+	}
+
+	/**
+	 * Number of hops this message traveled so far
+	 *
+	 * @return
+	 */
+	public int getHopCount() {
+		return hopCount;
+	}
+
+	@Override
+	public Message getPayload() {
+		return payload;
+	}
+
+	private static long getContentSize(FloodingContact origin, Message payload) {
+		long size = origin.getTransmissionSize() + HEADER_SIZE;
+		if (payload != null) {
+			size += payload.getSize();
+		}
+		return size;
+	}
+
+	@Override
+	public String toString() {
+		return "FLOOD " + origin.getNodeID() + "#" + sequenceNumber + " ttl:"
+				+ ttl + " hops:" + hopCount;
+	}
+
+}
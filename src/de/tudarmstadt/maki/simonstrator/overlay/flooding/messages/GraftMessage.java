@@ -0,0 +1,30 @@
+package de.tudarmstadt.maki.simonstrator.overlay.flooding.messages;
+
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingContact;
+
+/**
+ * Repairs the plumtree broadcast tree: the sender missed the flood with the
+ * given ID (announced via {@link IHaveMessage}) and adds the receiver to its
+ * eager peers. The receiver does the same and sends the flood.
+ */
+public class GraftMessage extends AbstractFloodingMessage {
+
+	private static final long serialVersionUID = -3540386342853745128L;
+
+	private final long messageId;
+
+	public GraftMessage(FloodingContact sender, long messageId) {
+		super(sender, IHaveMessage.ID_SIZE);
+		this.messageId = messageId;
+	}
+
+	public long getMessageId() {
+		return messageId;
+	}
+
+	@Override
+	public String toString() {
+		return "GRAFT " + messageId;
+	}
+
+}
@@ -0,0 +1,22 @@
+package de.tudarmstadt.maki.simonstrator.overlay.flooding.messages;
+
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingContact;
+
+/**
+ * Sent periodically to all connected neighbors to show that we are still
+ * alive. Any other message of a neighbor serves the same purpose.
+ */
+public class HeartbeatMessage extends AbstractFloodingMessage {
+
+	private static final long serialVersionUID = -6202775415813294420L;
+
+	public HeartbeatMessage(FloodingContact sender) {
+		super(sender);
+	}
+
+	@Override
+	public String toString() {
+		return "HEARTBEAT " + getSenderContact().toString();
+	}
+
+}
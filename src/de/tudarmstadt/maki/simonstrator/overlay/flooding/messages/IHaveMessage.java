@@ -0,0 +1,41 @@
+package de.tudarmstadt.maki.simonstrator.overlay.flooding.messages;
+
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingContact;
+
+/**
+ * Lazy announcement of the plumtree broadcast: the sender received the floods
+ * with the given IDs (origin and sequence number, see
+ * {@link de.tudarmstadt.maki.simonstrator.overlay.util.SeenMessageCache#key(long, int)}
+ * ) and can send them on request via a {@link GraftMessage}.
+ */
+public class IHaveMessage extends AbstractFloodingMessage {
+
+	private static final long serialVersionUID = 1939102416012342585L;
+
+	/**
+	 * Size of a message ID
+	 */
+	public static final int ID_SIZE = 8;
+
+	private final long[] messageIds;
+
+	public IHaveMessage(FloodingContact sender, long[] messageIds) {
+		super(sender, messageIds.length * ID_SIZE);
+		this.messageIds = messageIds.clone();
+	}
+
+	/**
+	 * IDs of the announced floods, must not be modified
+	 * 
+	 * @return
+	 */
+	public long[] getMessageIds() {
+		return messageIds;
+	}
+
+	@Override
+	public String toString() {
+		return "IHAVE ids:" + messageIds.length;
+	}
+
+}
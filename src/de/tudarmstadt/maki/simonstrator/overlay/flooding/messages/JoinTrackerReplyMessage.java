@@ -15,27 +15,14 @@ public class JoinTrackerReplyMessage extends AbstractFloodingMessage {
 
 	public JoinTrackerReplyMessage(FloodingContact sender,
 			List<FloodingContact> initialNeighbors) {
-		super(sender);
-		this.initialNeighbors = initialNeighbors;
+		super(sender, sizeOf(initialNeighbors));
+		this.initialNeighbors = snapshot(initialNeighbors);
 	}
 
 	public List<FloodingContact> getNeighbors() {
 		return initialNeighbors;
 	}
 
-	@Override
-	public long getSize() {
-		/*
-		 * This is NOT the full video file, therefore getSize would not work!
-		 */
-		long size = 0;
-		for (FloodingContact c : initialNeighbors) {
-			size += c.getTransmissionSize();
-		}
-		
-		return super.getSize() + size;
-	}
-
 	@Override
 	public String toString() {
 		return "JOIN REPLY neighbors:" + getNeighbors().toString();
@@ -0,0 +1,35 @@
+package de.tudarmstadt.maki.simonstrator.overlay.flooding.messages;
+
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingContact;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.NeighborDigest;
+
+/**
+ * Requests the full contacts for the given digest entries, after a
+ * {@link ConnectPeersMessage} with a digest contained unknown neighbors.
+ */
+public class NeighborPullMessage extends AbstractFloodingMessage {
+
+	private static final long serialVersionUID = -3377452165826460011L;
+
+	private final int[] hashes;
+
+	public NeighborPullMessage(FloodingContact sender, int[] hashes) {
+		super(sender, hashes.length * NeighborDigest.ENTRY_SIZE);
+		this.hashes = hashes.clone();
+	}
+
+	/**
+	 * Digest entries of the requested contacts, must not be modified
+	 * 
+	 * @return
+	 */
+	public int[] getHashes() {
+		return hashes;
+	}
+
+	@Override
+	public String toString() {
+		return "NEIGHBOR PULL entries:" + hashes.length;
+	}
+
+}
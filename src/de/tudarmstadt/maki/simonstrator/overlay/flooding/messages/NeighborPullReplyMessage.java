@@ -0,0 +1,31 @@
+package de.tudarmstadt.maki.simonstrator.overlay.flooding.messages;
+
+import java.util.List;
+
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingContact;
+
+/**
+ * Answer to a {@link NeighborPullMessage} with the requested contacts
+ */
+public class NeighborPullReplyMessage extends AbstractFloodingMessage {
+
+	private static final long serialVersionUID = 4581183069386405937L;
+
+	private final List<FloodingContact> neighbors;
+
+	public NeighborPullReplyMessage(FloodingContact sender,
+			List<FloodingContact> neighbors) {
+		super(sender, sizeOf(neighbors));
+		this.neighbors = snapshot(neighbors);
+	}
+
+	public List<FloodingContact> getNeighbors() {
+		return neighbors;
+	}
+
+	@Override
+	public String toString() {
+		return "NEIGHBOR PULL REPLY neighbors:" + neighbors.size();
+	}
+
+}
@@ -0,0 +1,22 @@
+package de.tudarmstadt.maki.simonstrator.overlay.flooding.messages;
+
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingContact;
+
+/**
+ * Sent after receiving a duplicate flood: the receiver moves the sender to its
+ * lazy peers, i.e., removes the link from the plumtree broadcast tree.
+ */
+public class PruneMessage extends AbstractFloodingMessage {
+
+	private static final long serialVersionUID = 6863367180447734437L;
+
+	public PruneMessage(FloodingContact sender) {
+		super(sender);
+	}
+
+	@Override
+	public String toString() {
+		return "PRUNE " + getSenderContact().toString();
+	}
+
+}
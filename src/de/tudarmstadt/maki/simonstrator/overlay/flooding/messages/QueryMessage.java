@@ -0,0 +1,106 @@
+package de.tudarmstadt.maki.simonstrator.overlay.flooding.messages;
+
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingContact;
+
+/**
+ * A search for the nodes that hold content with the given key. Queries are
+ * flooded like {@link FloodMessage}s, each forwarding node remembers the
+ * upstream node to send the merged {@link QueryResponseMessage} back along
+ * the reverse path.
+ */
+public class QueryMessage extends AbstractOperationMessage {
+
+	private static final long serialVersionUID = 3815208744063171236L;
+
+	/**
+	 * sequence number (4 byte), TTL and hop count (1 byte each)
+	 */
+	private static final int HEADER_SIZE = 6;
+
+	private final FloodingContact origin;
+
+	private final int sequenceNumber;
+
+	private final String key;
+
+	private final int ttl;
+
+	private final int hopCount;
+
+	/**
+	 * Creates a new query at the origin
+	 *
+	 * @param origin
+	 * @param sequenceNumber
+	 * @param key
+	 * @param ttl
+	 * @param operationID
+	 *            the search operation
+	 */
+	public QueryMessage(FloodingContact origin, int sequenceNumber, String key,
+			int ttl, int operationID) {
+		super(origin, operationID, getContentSize(origin, key));
+		this.origin = origin;
+		this.sequenceNumber = sequenceNumber;
+		this.key = key;
+		this.ttl = ttl;
+		this.hopCount = 0;
+	}
+
+	/**
+	 * Forward-constructor: decrements the TTL and increments the hop count of
+	 * the received query.
+	 *
+	 * @param sender
+	 * @param received
+	 */
+	public QueryMessage(FloodingContact sender, QueryMessage received) {
+		super(sender, received, getContentSize(received.origin, received.key));
+		this.origin = received.origin;
+		this.sequenceNumber = received.sequenceNumber;
+		this.key = received.key;
+		this.ttl = received.ttl - 1;
+		this.hopCount = received.hopCount + 1;
+	}
+
+	public FloodingContact getOrigin() {
+		return origin;
+	}
+
+	public int getSequenceNumber() {
+		return sequenceNumber;
+	}
+
+	/**
+	 * The key of the requested content
+	 *
+	 * @return
+	 */
+	public String getKey() {
+		return key;
+	}
+
+	/**
+	 * Remaining number of hops this query may be forwarded
+	 *
+	 * @return
+	 */
+	public int getTTL() {
+		return ttl;
+	}
+
+	public int getHopCount() {
+		return hopCount;
+	}
+
+	private static long getContentSize(FloodingContact origin, String key) {
+		return origin.getTransmissionSize() + HEADER_SIZE + key.length();
+	}
+
+	@Override
+	public String toString() {
+		return "QUERY " + origin.getNodeID() + "#" + sequenceNumber + " key:"
+				+ key + " ttl:" + ttl + " hops:" + hopCount;
+	}
+
+}
@@ -0,0 +1,70 @@
+package de.tudarmstadt.maki.simonstrator.overlay.flooding.messages;
+
+import java.util.Collection;
+import java.util.List;
+
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingContact;
+
+/**
+ * The merged results of a {@link QueryMessage} for the subtree of the sender,
+ * sent to the node the query was received from. An empty response tells the
+ * upstream node not to wait for the sender (e.g., if the query was a
+ * duplicate).
+ */
+public class QueryResponseMessage extends AbstractOperationMessage {
+
+	private static final long serialVersionUID = -5861930296519409467L;
+
+	/**
+	 * sequence number of the query (4 byte)
+	 */
+	private static final int HEADER_SIZE = 4;
+
+	private final FloodingContact origin;
+
+	private final int sequenceNumber;
+
+	private final List<FloodingContact> results;
+
+	/**
+	 * Reply-constructor
+	 *
+	 * @param sender
+	 * @param query
+	 *            the query that is answered
+	 * @param results
+	 *            nodes that hold the requested content
+	 */
+	public QueryResponseMessage(FloodingContact sender, QueryMessage query,
+			Collection<FloodingContact> results) {
+		super(sender, query, query.getOrigin().getTransmissionSize()
+				+ HEADER_SIZE + AbstractFloodingMessage.sizeOf(results));
+		this.origin = query.getOrigin();
+		this.sequenceNumber = query.getSequenceNumber();
+		this.results = AbstractFloodingMessage.snapshot(results);
+	}
+
+	public FloodingContact getOrigin() {
+		return origin;
+	}
+
+	public int getSequenceNumber() {
+		return sequenceNumber;
+	}
+
+	/**
+	 * Nodes that hold the requested content (must not be modified)
+	 *
+	 * @return
+	 */
+	public List<FloodingContact> getResults() {
+		return results;
+	}
+
+	@Override
+	public String toString() {
+		return "QUERY-RESPONSE " + origin.getNodeID() + "#" + sequenceNumber
+				+ " results:" + results.size();
+	}
+
+}
@@ -0,0 +1,23 @@
+package de.tudarmstadt.maki.simonstrator.overlay.flooding.messages;
+
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingContact;
+
+/**
+ * Sent periodically by a peer to renew its membership lease at the tracker.
+ * Peers that stop sending this message are no longer handed out as initial
+ * neighbors once their lease expired.
+ */
+public class RenewLeaseMessage extends AbstractFloodingMessage {
+
+	private static final long serialVersionUID = 2236418894580612381L;
+
+	public RenewLeaseMessage(FloodingContact sender) {
+		super(sender);
+	}
+
+	@Override
+	public String toString() {
+		return "RENEW LEASE " + getSenderContact().toString();
+	}
+
+}
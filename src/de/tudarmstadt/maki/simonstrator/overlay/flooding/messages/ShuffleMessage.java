@@ -0,0 +1,38 @@
+package de.tudarmstadt.maki.simonstrator.overlay.flooding.messages;
+
+import java.util.List;
+
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingContact;
+
+/**
+ * Request of the gossip-based peer sampling: contains a random subset of the
+ * partial view of the sender (including the sender itself). The receiver
+ * answers with a {@link ShuffleReplyMessage} and both merge the received
+ * contacts into their view.
+ */
+public class ShuffleMessage extends AbstractFloodingMessage {
+
+	private static final long serialVersionUID = 5402921166325207785L;
+
+	private final List<FloodingContact> entries;
+
+	public ShuffleMessage(FloodingContact sender, List<FloodingContact> entries) {
+		super(sender, sizeOf(entries));
+		this.entries = snapshot(entries);
+	}
+
+	/**
+	 * Contacts offered by the sender
+	 * 
+	 * @return
+	 */
+	public List<FloodingContact> getEntries() {
+		return entries;
+	}
+
+	@Override
+	public String toString() {
+		return "SHUFFLE entries:" + entries.size();
+	}
+
+}
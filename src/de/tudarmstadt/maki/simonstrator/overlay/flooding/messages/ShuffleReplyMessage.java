@@ -0,0 +1,25 @@
+package de.tudarmstadt.maki.simonstrator.overlay.flooding.messages;
+
+import java.util.List;
+
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingContact;
+
+/**
+ * Answer to a {@link ShuffleMessage}, containing a random subset of the
+ * partial view of the answering node.
+ */
+public class ShuffleReplyMessage extends ShuffleMessage {
+
+	private static final long serialVersionUID = -2989580301846322032L;
+
+	public ShuffleReplyMessage(FloodingContact sender,
+			List<FloodingContact> entries) {
+		super(sender, entries);
+	}
+
+	@Override
+	public String toString() {
+		return "SHUFFLE REPLY entries:" + getEntries().size();
+	}
+
+}
@@ -0,0 +1,33 @@
+package de.tudarmstadt.maki.simonstrator.overlay.flooding.messages;
+
+import java.util.List;
+
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingContact;
+
+/**
+ * Exchanged periodically between tracker shards. Contains a random sample of
+ * the members of the sending shard, which the receiver mixes into its
+ * bootstrap lists so that these cover the whole network.
+ */
+public class TrackerSampleMessage extends AbstractFloodingMessage {
+
+	private static final long serialVersionUID = -4128075166254338915L;
+
+	private final List<FloodingContact> sample;
+
+	public TrackerSampleMessage(FloodingContact sender,
+			List<FloodingContact> sample) {
+		super(sender, sizeOf(sample));
+		this.sample = snapshot(sample);
+	}
+
+	public List<FloodingContact> getSample() {
+		return sample;
+	}
+
+	@Override
+	public String toString() {
+		return "TRACKER SAMPLE size:" + sample.size();
+	}
+
+}
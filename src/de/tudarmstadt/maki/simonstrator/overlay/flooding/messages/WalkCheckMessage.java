@@ -0,0 +1,36 @@
+package de.tudarmstadt.maki.simonstrator.overlay.flooding.messages;
+
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingContact;
+
+/**
+ * Check-back of a random walker with its origin: the node currently holding
+ * the walker asks whether the search is still running. The origin answers
+ * with a {@link WalkCheckReplyMessage}.
+ */
+public class WalkCheckMessage extends AbstractOperationMessage {
+
+	private static final long serialVersionUID = -4925133608011417208L;
+
+	private final int walkId;
+
+	/**
+	 *
+	 * @param sender
+	 * @param walker
+	 *            the walker that checks back
+	 */
+	public WalkCheckMessage(FloodingContact sender, WalkMessage walker) {
+		super(sender, walker, 4);
+		this.walkId = walker.getWalkId();
+	}
+
+	public int getWalkId() {
+		return walkId;
+	}
+
+	@Override
+	public String toString() {
+		return "WALK-CHECK #" + walkId;
+	}
+
+}
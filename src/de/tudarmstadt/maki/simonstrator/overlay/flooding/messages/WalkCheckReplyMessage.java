@@ -0,0 +1,42 @@
+package de.tudarmstadt.maki.simonstrator.overlay.flooding.messages;
+
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingContact;
+
+/**
+ * Answer of the origin to a {@link WalkCheckMessage}
+ */
+public class WalkCheckReplyMessage extends AbstractOperationMessage {
+
+	private static final long serialVersionUID = 2395404620357155390L;
+
+	private final boolean proceed;
+
+	/**
+	 * Reply-constructor
+	 *
+	 * @param sender
+	 * @param check
+	 * @param proceed
+	 *            false, if the walker is to be stopped
+	 */
+	public WalkCheckReplyMessage(FloodingContact sender,
+			WalkCheckMessage check, boolean proceed) {
+		super(sender, check, 1);
+		this.proceed = proceed;
+	}
+
+	/**
+	 * True, if the search is still running
+	 *
+	 * @return
+	 */
+	public boolean isProceed() {
+		return proceed;
+	}
+
+	@Override
+	public String toString() {
+		return "WALK-CHECK-REPLY proceed:" + proceed;
+	}
+
+}
@@ -0,0 +1,101 @@
+package de.tudarmstadt.maki.simonstrator.overlay.flooding.messages;
+
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingContact;
+
+/**
+ * A random walker searching for content with the given key. The walker is
+ * passed to one random neighbor per hop until it finds the content, its TTL
+ * expires or the origin tells it to stop (see {@link WalkCheckMessage}).
+ */
+public class WalkMessage extends AbstractOperationMessage {
+
+	private static final long serialVersionUID = 7310553316276046853L;
+
+	/**
+	 * walk ID (4 byte), TTL and hop count (1 byte each)
+	 */
+	private static final int HEADER_SIZE = 6;
+
+	private final FloodingContact origin;
+
+	private final int walkId;
+
+	private final String key;
+
+	private final int ttl;
+
+	private final int hopCount;
+
+	/**
+	 * Creates a new walker at the origin
+	 *
+	 * @param origin
+	 * @param walkId
+	 *            identifies the search at the origin (shared by all walkers
+	 *            of the search)
+	 * @param key
+	 * @param ttl
+	 * @param operationID
+	 */
+	public WalkMessage(FloodingContact origin, int walkId, String key,
+			int ttl, int operationID) {
+		super(origin, operationID, getContentSize(origin, key));
+		this.origin = origin;
+		this.walkId = walkId;
+		this.key = key;
+		this.ttl = ttl;
+		this.hopCount = 0;
+	}
+
+	/**
+	 * Forward-constructor: decrements the TTL and increments the hop count of
+	 * the received walker.
+	 *
+	 * @param sender
+	 * @param received
+	 */
+	public WalkMessage(FloodingContact sender, WalkMessage received) {
+		super(sender, received, getContentSize(received.origin, received.key));
+		this.origin = received.origin;
+		this.walkId = received.walkId;
+		this.key = received.key;
+		this.ttl = received.ttl - 1;
+		this.hopCount = received.hopCount + 1;
+	}
+
+	public FloodingContact getOrigin() {
+		return origin;
+	}
+
+	public int getWalkId() {
+		return walkId;
+	}
+
+	public String getKey() {
+		return key;
+	}
+
+	/**
+	 * Remaining number of hops of this walker
+	 *
+	 * @return
+	 */
+	public int getTTL() {
+		return ttl;
+	}
+
+	public int getHopCount() {
+		return hopCount;
+	}
+
+	private static long getContentSize(FloodingContact origin, String key) {
+		return origin.getTransmissionSize() + HEADER_SIZE + key.length();
+	}
+
+	@Override
+	public String toString() {
+		return "WALK " + origin.getNodeID() + "#" + walkId + " key:" + key
+				+ " ttl:" + ttl + " hops:" + hopCount;
+	}
+
+}
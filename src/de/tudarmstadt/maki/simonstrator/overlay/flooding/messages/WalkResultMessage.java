@@ -0,0 +1,36 @@
+package de.tudarmstadt.maki.simonstrator.overlay.flooding.messages;
+
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingContact;
+
+/**
+ * Sent directly to the origin of a random walker by a node that holds the
+ * requested content. The sender is the result.
+ */
+public class WalkResultMessage extends AbstractOperationMessage {
+
+	private static final long serialVersionUID = -1063474950815367735L;
+
+	private final int walkId;
+
+	/**
+	 * Reply-constructor
+	 *
+	 * @param sender
+	 *            the node holding the content
+	 * @param walker
+	 */
+	public WalkResultMessage(FloodingContact sender, WalkMessage walker) {
+		super(sender, walker, 4);
+		this.walkId = walker.getWalkId();
+	}
+
+	public int getWalkId() {
+		return walkId;
+	}
+
+	@Override
+	public String toString() {
+		return "WALK-RESULT #" + walkId + " " + getSenderContact();
+	}
+
+}
@@ -23,33 +23,85 @@ package de.tudarmstadt.maki.simonstrator.overlay.flooding.operations;
 import java.util.Set;
 
 import de.tudarmstadt.maki.simonstrator.api.Monitor;
+import de.tudarmstadt.maki.simonstrator.api.operation.AbstractOperation;
 import de.tudarmstadt.maki.simonstrator.api.operation.OperationCallback;
-import de.tudarmstadt.maki.simonstrator.api.operation.PeriodicOperation;
 import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingContact;
 import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingNode;
 import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingNodeFactory;
 import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingSettings.Params;
 import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingSettings.Times;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.TickScheduler;
 import de.tudarmstadt.maki.simonstrator.overlay.flooding.messages.ConnectPeersMessage;
 
 /**
- * This operation checks for new connections
+ * This operation checks for new connections and keeps the set of potential
+ * neighbors fresh by shuffling it with a random neighbor. It is executed
+ * right after {@link #start()} and then every
+ * {@link Times#MAINTENANCE_INTERVAL} by the shared {@link TickScheduler}
+ * instead of scheduling an own event.
+ *
+ * As with a PeriodicOperation, every execution resets the state of the
+ * operation and finishes it, so that the callback is informed once per
+ * execution.
  */
 public class MaintenanceOperation extends
-		PeriodicOperation<FloodingNode, Object> {
+		AbstractOperation<FloodingNode, Object> implements TickScheduler.Task {
 
 	private FloodingNode node;
 
+	private final TickScheduler scheduler;
+
+	private int iterations = 0;
+
 	public MaintenanceOperation(FloodingNode node,
 			OperationCallback<Object> callback) {
-		super(node, callback, node.getSettings().getTime(
+		super(node, callback);
+		this.scheduler = TickScheduler.forInterval(node.getSettings().getTime(
 				Times.MAINTENANCE_INTERVAL));
-
 		this.node = node;
 	}
 
+	/**
+	 * Executes the operation immediately and starts the periodic execution,
+	 * the first tick happens within {@link Times#MAINTENANCE_JITTER}
+	 */
+	public void start() {
+		scheduler.add(this, node.getSettings().getTime(
+				Times.MAINTENANCE_JITTER));
+		scheduleImmediately();
+	}
+
+	public void stop() {
+		scheduler.remove(this);
+	}
+
+	public boolean isStopped() {
+		return !scheduler.contains(this);
+	}
+
+	/**
+	 * Number of executions so far
+	 * 
+	 * @return
+	 */
+	public int getIterationCount() {
+		return iterations;
+	}
+
+	@Override
+	public void tick() {
+		execute();
+	}
+
 	@Override
-	protected void executeOnce() {
+	protected void execute() {
+		if (isStopped()) {
+			// stopped before the immediate execution
+			return;
+		}
+		resetInternalState();
+		iterations++;
+
 		// System.out.println(node.toString() +
 		// " Maintenance operation started");
 
@@ -67,15 +119,29 @@ public class MaintenanceOperation extends
 
     node.setBudget(maxNumConnections);
 
+		// Keep our membership at the tracker alive
+		node.renewTrackerLeaseIfDue();
+
+		// Refresh the potential neighbors via gossip-based peer sampling
+		node.shuffleView();
+
 		/*
-		 * TODO Connect to neighbors that are not connected yet up to a maximum
+		 * Connect to neighbors that are not connected yet up to a maximum
 		 * number of connections
 		 */
+		node.getConnectionManager().fillWindow();
+
+		// Replace long-range links towards a small world
+		if (node.getSmallWorldRewiring() != null) {
+			node.getSmallWorldRewiring().maintain();
+		}
+
+		// Advertise our content to the neighbors
+		if (node.getContentRouting() != null) {
+			node.getContentRouting().update();
+		}
 
-    // Send a message to another peer
-    while(node.maxConnectionAttempts.tryAcquire() && node.leaseOutgoingConnection()) {
-        node.connectToSomeone();
-    }
+		operationFinished(true);
 	}
 
 	@Override
@@ -0,0 +1,108 @@
+package de.tudarmstadt.maki.simonstrator.overlay.flooding.operations;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import de.tudarmstadt.maki.simonstrator.api.Monitor;
+import de.tudarmstadt.maki.simonstrator.api.Monitor.Level;
+import de.tudarmstadt.maki.simonstrator.api.operation.AbstractOperation;
+import de.tudarmstadt.maki.simonstrator.api.operation.OperationCallback;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingContact;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingNode;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingSettings.Params;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingSettings.Times;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.RandomWalker;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.RandomWalker.WalkCallback;
+
+/**
+ * Searches the nodes that hold content with the given key with k random
+ * walkers ({@link Params#RANDOM_WALK_WALKERS}) over the connected neighbors.
+ * In contrast to the {@link SearchOperation}, the number of messages is
+ * bounded by k * {@link Params#RANDOM_WALK_TTL} (plus check-backs),
+ * independent of the degree of the nodes, at the cost of a higher latency.
+ *
+ * The walkers check back with this node periodically (see
+ * {@link RandomWalker}), they are stopped as soon as the wanted number of
+ * results was found or after {@link Times#RANDOM_WALK_TIMEOUT}. The operation
+ * succeeds if at least one result was found.
+ */
+public class RandomWalkOperation extends
+		AbstractOperation<FloodingNode, List<FloodingContact>> implements
+		WalkCallback {
+
+	private final String key;
+
+	private final int wantedResults;
+
+	private final Set<FloodingContact> results = new LinkedHashSet<FloodingContact>();
+
+	private int walkId = -1;
+
+	/**
+	 *
+	 * @param component
+	 * @param key
+	 *            key of the requested content
+	 * @param wantedResults
+	 *            search stops as soon as this number of nodes is found
+	 * @param callback
+	 */
+	public RandomWalkOperation(FloodingNode component, String key,
+			int wantedResults, OperationCallback<List<FloodingContact>> callback) {
+		super(component, callback);
+		this.key = key;
+		this.wantedResults = wantedResults;
+	}
+
+	@Override
+	protected void execute() {
+		if (getComponent().getConnectedNeighbors().isEmpty()) {
+			operationFinished(false);
+			return;
+		}
+		walkId = getComponent().getRandomWalker().startWalk(key,
+				getComponent().getSettings().getParam(
+						Params.RANDOM_WALK_WALKERS),
+				getComponent().getSettings().getParam(Params.RANDOM_WALK_TTL),
+				getOperationID(), this);
+		scheduleOperationTimeout(getComponent().getSettings().getTime(
+				Times.RANDOM_WALK_TIMEOUT));
+	}
+
+	@Override
+	public void resultReceived(FloodingContact holder) {
+		if (isFinished()) {
+			return;
+		}
+		results.add(holder);
+		if (results.size() >= wantedResults) {
+			finish();
+		}
+	}
+
+	@Override
+	protected void operationTimeoutOccured() {
+		if (!isFinished()) {
+			finish();
+		}
+	}
+
+	private void finish() {
+		// remaining walkers stop at their next check-back
+		getComponent().getRandomWalker().stopWalk(walkId);
+		Monitor.log(FloodingNode.class, Level.DEBUG, this + ": found "
+				+ results.size() + " results for " + key);
+		operationFinished(!results.isEmpty());
+	}
+
+	/**
+	 * Nodes holding the requested content
+	 */
+	@Override
+	public List<FloodingContact> getResult() {
+		return new ArrayList<FloodingContact>(results);
+	}
+
+}
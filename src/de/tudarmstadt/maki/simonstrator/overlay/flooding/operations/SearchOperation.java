@@ -0,0 +1,123 @@
+package de.tudarmstadt.maki.simonstrator.overlay.flooding.operations;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import de.tudarmstadt.maki.simonstrator.api.Monitor;
+import de.tudarmstadt.maki.simonstrator.api.Monitor.Level;
+import de.tudarmstadt.maki.simonstrator.api.operation.AbstractOperation;
+import de.tudarmstadt.maki.simonstrator.api.operation.OperationCallback;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingContact;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingNode;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingSettings.Params;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.QueryHandler;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.QueryHandler.QueryCallback;
+
+/**
+ * Searches the nodes that hold content with the given key (expanding ring).
+ * The query is flooded with {@link Params#QUERY_TTL_START}, if less than the
+ * wanted number of results arrive, it is flooded again with a TTL increased by
+ * {@link Params#QUERY_TTL_STEP}, up to {@link Params#QUERY_TTL_MAX}. Popular
+ * content is thereby found within a few hops, without flooding the whole
+ * mesh.
+ *
+ * The responses are aggregated along the reverse path by the
+ * {@link QueryHandler}. All messages carry the ID of this operation, so that
+ * the traffic is attributed to the search.
+ *
+ * The operation succeeds if at least one result was found. The result
+ * contains all nodes that were found, possibly more than wanted.
+ */
+public class SearchOperation extends
+		AbstractOperation<FloodingNode, List<FloodingContact>> implements
+		QueryCallback {
+
+	private final String key;
+
+	private final int wantedResults;
+
+	private final Set<FloodingContact> results = new LinkedHashSet<FloodingContact>();
+
+	private int ttl;
+
+	private int rounds = 0;
+
+	/**
+	 *
+	 * @param component
+	 * @param key
+	 *            key of the requested content
+	 * @param wantedResults
+	 *            search stops as soon as this number of nodes is found
+	 * @param callback
+	 */
+	public SearchOperation(FloodingNode component, String key,
+			int wantedResults, OperationCallback<List<FloodingContact>> callback) {
+		super(component, callback);
+		this.key = key;
+		this.wantedResults = wantedResults;
+	}
+
+	@Override
+	protected void execute() {
+		ttl = getComponent().getSettings().getParam(Params.QUERY_TTL_START);
+		startRound();
+	}
+
+	private void startRound() {
+		rounds++;
+		getComponent().getQueryHandler().startQuery(key, ttl, getOperationID(),
+				this);
+	}
+
+	@Override
+	public void queryFinished(String key, Set<FloodingContact> roundResults) {
+		if (isFinished()) {
+			return;
+		}
+		results.addAll(roundResults);
+		int maxTTL = getComponent().getSettings().getParam(
+				Params.QUERY_TTL_MAX);
+		if (results.size() >= wantedResults || ttl >= maxTTL
+				|| !getComponent().isPresent()) {
+			Monitor.log(FloodingNode.class, Level.DEBUG, this + ": found "
+					+ results.size() + " results for " + key + " in "
+					+ rounds + " rounds (TTL " + ttl + ")");
+			operationFinished(!results.isEmpty());
+			return;
+		}
+		ttl = Math.min(maxTTL,
+				ttl + getComponent().getSettings().getParam(
+						Params.QUERY_TTL_STEP));
+		startRound();
+	}
+
+	/**
+	 * Number of floods issued so far
+	 *
+	 * @return
+	 */
+	public int getRounds() {
+		return rounds;
+	}
+
+	/**
+	 * TTL of the last round
+	 *
+	 * @return
+	 */
+	public int getTTL() {
+		return ttl;
+	}
+
+	/**
+	 * Nodes holding the requested content
+	 */
+	@Override
+	public List<FloodingContact> getResult() {
+		return new ArrayList<FloodingContact>(results);
+	}
+
+}
@@ -0,0 +1,31 @@
+package de.tudarmstadt.maki.simonstrator.overlay.flooding.operations;
+
+import de.tudarmstadt.maki.simonstrator.api.operation.OperationCallback;
+import de.tudarmstadt.maki.simonstrator.api.operation.PeriodicOperation;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingSettings.Times;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.tracker.FloodingTracker;
+
+/**
+ * Periodically sends a sample of the local shard to all other tracker shards.
+ * Does nothing, if there is only one tracker.
+ */
+public class TrackerExchangeOperation extends
+		PeriodicOperation<FloodingTracker, Object> {
+
+	public TrackerExchangeOperation(FloodingTracker tracker,
+			OperationCallback<Object> callback) {
+		super(tracker, callback, tracker.getSettings().getTime(
+				Times.TRACKER_EXCHANGE_INTERVAL));
+	}
+
+	@Override
+	protected void executeOnce() {
+		getComponent().sendSamplesToOtherShards();
+	}
+
+	@Override
+	public Object getResult() {
+		return null;
+	}
+
+}
@@ -1,31 +1,41 @@
 package de.tudarmstadt.maki.simonstrator.overlay.flooding.tracker;
 
 
-import java.util.Collections;
-import java.util.LinkedHashSet;
-import java.util.LinkedList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
+import java.util.Random;
 
 import de.tudarmstadt.maki.simonstrator.api.Host;
 import de.tudarmstadt.maki.simonstrator.api.Message;
+import de.tudarmstadt.maki.simonstrator.api.Randoms;
+import de.tudarmstadt.maki.simonstrator.api.Time;
 import de.tudarmstadt.maki.simonstrator.api.component.network.NetInterface;
 import de.tudarmstadt.maki.simonstrator.api.component.transport.MessageBasedTransport;
 import de.tudarmstadt.maki.simonstrator.api.component.transport.ProtocolNotAvailableException;
 import de.tudarmstadt.maki.simonstrator.api.component.transport.TransInfo;
 import de.tudarmstadt.maki.simonstrator.api.component.transport.TransMessageListener;
 import de.tudarmstadt.maki.simonstrator.api.component.transport.protocol.TCPMessageBased;
+import de.tudarmstadt.maki.simonstrator.api.operation.Operations;
 import de.tudarmstadt.maki.simonstrator.overlay.AbstractOverlayNode;
 import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingContact;
 import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingContact.ContactType;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingNodeFactory;
 import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingSettings;
 import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingSettings.Params;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingSettings.Times;
 import de.tudarmstadt.maki.simonstrator.overlay.flooding.messages.FloodingMessage;
 import de.tudarmstadt.maki.simonstrator.overlay.flooding.messages.JoinTrackerMessage;
 import de.tudarmstadt.maki.simonstrator.overlay.flooding.messages.JoinTrackerReplyMessage;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.messages.RenewLeaseMessage;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.messages.TrackerSampleMessage;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.operations.TrackerExchangeOperation;
+import de.tudarmstadt.maki.simonstrator.overlay.util.IndexedSet;
 
 /**
- * This is a Tracker in the Flooding Overlay. 
+ * This is a Tracker in the Flooding Overlay. If multiple trackers are
+ * configured, each of them is responsible for one shard of the peers (see
+ * {@link TrackerRing}) and the trackers exchange samples of their shards.
  */
 public class FloodingTracker extends AbstractOverlayNode implements TransMessageListener {
 
@@ -50,9 +60,19 @@ public class FloodingTracker extends AbstractOverlayNode implements TransMessage
 	private MessageBasedTransport transport;
 
 	/**
-	 * All nodes that are know to the tracker
+	 * All nodes that are known to the tracker and hold a valid lease
 	 */
-	private Set<FloodingContact> availableNodes = new LinkedHashSet<FloodingContact>();
+	private final TrackerMembership availableNodes;
+
+	private final Random random = Randoms.getRandom(FloodingTracker.class);
+
+	/**
+	 * Members of other shards, as received in the last sample of the
+	 * respective tracker
+	 */
+	private final IndexedSet<FloodingContact> remoteNodes = new IndexedSet<FloodingContact>();
+
+	private final Map<FloodingContact, List<FloodingContact>> remoteSamples = new HashMap<FloodingContact, List<FloodingContact>>();
 
 	/**
 	 * The constructor called by the node factory
@@ -66,6 +86,8 @@ public class FloodingTracker extends AbstractOverlayNode implements TransMessage
 		super(host);
 		this.localPort = port;
 		this.settings = settings;
+		this.availableNodes = new TrackerMembership(
+				settings.getTime(Times.TRACKER_LEASE));
 	}
 
 	@Override
@@ -83,11 +105,15 @@ public class FloodingTracker extends AbstractOverlayNode implements TransMessage
 			e.printStackTrace();
 		}
 
-		localContact = new FloodingContact(getHost().getId(), transport.getTransInfo(), ContactType.TRACKER);
+		localContact = FloodingNodeFactory.intern(new FloodingContact(getHost()
+				.getId(), transport.getTransInfo(), ContactType.TRACKER));
 
 		transport.setTransportMessageListener(this);
 
 		setPeerStatus(PeerStatus.PRESENT);
+
+		new TrackerExchangeOperation(this, Operations.getEmptyCallback())
+				.start();
 	}
 
 
@@ -104,7 +130,14 @@ public class FloodingTracker extends AbstractOverlayNode implements TransMessage
 					getInitialNeighborsForNode(jtm.getSenderContact()));
 
 			// Add sender to list of nodes for later neighbors
-			availableNodes.add(msg.getSenderContact());
+			availableNodes.renew(FloodingNodeFactory.intern(msg.getSenderContact()),
+					Time.getCurrentTime());
+		} else if (msg instanceof RenewLeaseMessage) {
+			availableNodes.renew(FloodingNodeFactory.intern(msg.getSenderContact()),
+					Time.getCurrentTime());
+		} else if (msg instanceof TrackerSampleMessage) {
+			updateRemoteSample(msg.getSenderContact(),
+					((TrackerSampleMessage) msg).getSample());
 		} else {
 			throw new AssertionError("Unknown message type " + msg.getClass().getSimpleName());
 		}
@@ -115,27 +148,77 @@ public class FloodingTracker extends AbstractOverlayNode implements TransMessage
 	}
 
 	/**
-	 * Generate a random set of initial neighbors
+	 * Generate a random set of initial neighbors (O(k) in the number of
+	 * returned neighbors)
 	 * 
 	 * @param requester
 	 * @return
 	 */
 	private List<FloodingContact> getInitialNeighborsForNode(
 			FloodingContact requester) {
-		List<FloodingContact> initialNeigbors = new LinkedList<FloodingContact>(availableNodes);
-
-		// Remove own contact from list
-		initialNeigbors.remove(requester);
-
 		// Determine the maximum number of neighbors to be returned
 		int maxNumNeighbors = settings.getParam(Params.MAX_NUM_NEW_NEIGHBORS);
-		
-		if (initialNeigbors.size() < maxNumNeighbors)
-			return initialNeigbors;
 
-		// Shuffle list and return max number of neighbors
-		Collections.shuffle(initialNeigbors);
-		return initialNeigbors.subList(0, maxNumNeighbors - 1);
+		/*
+		 * With n shards, only 1/n of the network is in our own shard - take the
+		 * remaining share from the samples of the other trackers.
+		 */
+		int numShards = FloodingNodeFactory.getTrackerRing().size();
+		int numRemote = 0;
+		if (numShards > 1 && !remoteNodes.isEmpty()) {
+			numRemote = Math.min(remoteNodes.size(), maxNumNeighbors
+					* (numShards - 1) / numShards);
+		}
+		List<FloodingContact> neighbors = availableNodes.sample(
+				maxNumNeighbors - numRemote, requester, random,
+				Time.getCurrentTime());
+		if (numRemote > 0) {
+			neighbors.addAll(remoteNodes.sample(numRemote, random, requester));
+		}
+		return neighbors;
+	}
+
+	/**
+	 * Sends a random sample of our own shard to all other tracker shards.
+	 * Called by the {@link TrackerExchangeOperation}.
+	 */
+	public void sendSamplesToOtherShards() {
+		List<FloodingTracker> trackers = FloodingNodeFactory.getTrackerRing()
+				.getTrackers();
+		if (trackers.size() < 2) {
+			return;
+		}
+		List<FloodingContact> sample = availableNodes.sample(
+				settings.getParam(Params.TRACKER_SAMPLE_SIZE), null, random,
+				Time.getCurrentTime());
+		for (FloodingTracker other : trackers) {
+			if (other == this) {
+				continue;
+			}
+			FloodingContact otherContact = other.getLocalOverlayContact();
+			transport.send(new TrackerSampleMessage(localContact, sample),
+					otherContact.getNetID(), otherContact.getTransInfo()
+							.getPort());
+		}
+	}
+
+	/**
+	 * Replaces the sample we know from the given tracker
+	 * 
+	 * @param tracker
+	 * @param sample
+	 */
+	private void updateRemoteSample(FloodingContact tracker,
+			List<FloodingContact> sample) {
+		List<FloodingContact> previous = remoteSamples.put(tracker, sample);
+		if (previous != null) {
+			remoteNodes.removeAll(previous);
+		}
+		remoteNodes.addAll(sample);
+	}
+
+	public FloodingSettings getSettings() {
+		return settings;
 	}
 
 	@Override
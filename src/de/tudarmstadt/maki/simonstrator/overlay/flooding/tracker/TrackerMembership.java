@@ -0,0 +1,126 @@
+package de.tudarmstadt.maki.simonstrator.overlay.flooding.tracker;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingContact;
+import de.tudarmstadt.maki.simonstrator.overlay.util.IndexedSet;
+
+/**
+ * Membership store of a {@link FloodingTracker}. Each member holds a lease that
+ * has to be renewed by the peer, otherwise the member is dropped. Random
+ * samples of the members are drawn in O(k).
+ *
+ * As all leases have the same duration, expiry times are monotonic in the
+ * order of renewals. Expired members are therefore found by looking at the
+ * head of a FIFO queue (amortized O(1) per renewal) instead of scanning all
+ * members.
+ */
+public class TrackerMembership {
+
+	private final long leaseDuration;
+
+	private final IndexedSet<FloodingContact> members = new IndexedSet<FloodingContact>();
+
+	/**
+	 * Current lease expiry per member
+	 */
+	private final Map<FloodingContact, Long> expiries = new HashMap<FloodingContact, Long>();
+
+	/**
+	 * All renewals in the order they happened. Entries of members that renewed
+	 * their lease later on are outdated and skipped on expiry.
+	 */
+	private final ArrayDeque<Lease> leases = new ArrayDeque<Lease>();
+
+	/**
+	 *
+	 * @param leaseDuration
+	 *            time a member stays in the store without renewal
+	 */
+	public TrackerMembership(long leaseDuration) {
+		this.leaseDuration = leaseDuration;
+	}
+
+	/**
+	 * Adds the contact or renews its lease
+	 *
+	 * @param contact
+	 * @param now
+	 */
+	public void renew(FloodingContact contact, long now) {
+		expire(now);
+		long expiry = now + leaseDuration;
+		members.add(contact);
+		expiries.put(contact, expiry);
+		leases.add(new Lease(contact, expiry));
+	}
+
+	/**
+	 * Removes the contact immediately (e.g., on a graceful leave)
+	 *
+	 * @param contact
+	 */
+	public void remove(FloodingContact contact) {
+		members.remove(contact);
+		expiries.remove(contact);
+	}
+
+	/**
+	 * Up to k random members with a valid lease, excluding the requester.
+	 *
+	 * @param k
+	 * @param requester
+	 * @param random
+	 * @param now
+	 * @return
+	 */
+	public List<FloodingContact> sample(int k, FloodingContact requester,
+			Random random, long now) {
+		expire(now);
+		return members.sample(k, random, requester);
+	}
+
+	/**
+	 * Number of members with a valid lease
+	 *
+	 * @param now
+	 * @return
+	 */
+	public int size(long now) {
+		expire(now);
+		return members.size();
+	}
+
+	/**
+	 * Drops all members whose lease expired before or at the given time
+	 *
+	 * @param now
+	 */
+	private void expire(long now) {
+		while (!leases.isEmpty() && leases.peek().expiry <= now) {
+			Lease lease = leases.poll();
+			Long current = expiries.get(lease.contact);
+			if (current != null && current.longValue() == lease.expiry) {
+				remove(lease.contact);
+			}
+		}
+	}
+
+	private static class Lease {
+
+		private final FloodingContact contact;
+
+		private final long expiry;
+
+		public Lease(FloodingContact contact, long expiry) {
+			this.contact = contact;
+			this.expiry = expiry;
+		}
+
+	}
+
+}
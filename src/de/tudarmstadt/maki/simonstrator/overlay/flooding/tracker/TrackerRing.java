@@ -0,0 +1,84 @@
+package de.tudarmstadt.maki.simonstrator.overlay.flooding.tracker;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import de.tudarmstadt.maki.simonstrator.api.common.UniqueID;
+import de.tudarmstadt.maki.simonstrator.api.common.graph.INodeID;
+import de.tudarmstadt.maki.simonstrator.overlay.DefaultIDSpace;
+
+/**
+ * Consistent hashing of peers onto a set of {@link FloodingTracker} shards.
+ * Each tracker is placed at {@link #VIRTUAL_NODES} positions on a ring in a
+ * {@link DefaultIDSpace}, a peer is assigned to the tracker that follows the
+ * hash of its node ID clockwise. Adding a tracker therefore only moves the
+ * peers of the neighboring ring segments.
+ */
+public class TrackerRing {
+
+	/**
+	 * Number of ring positions per tracker, smoothes the shard sizes
+	 */
+	public static final int VIRTUAL_NODES = 16;
+
+	private final DefaultIDSpace idSpace = new DefaultIDSpace(32);
+
+	private final TreeMap<UniqueID, FloodingTracker> ring = new TreeMap<UniqueID, FloodingTracker>();
+
+	private final List<FloodingTracker> trackers = new ArrayList<FloodingTracker>();
+
+	/**
+	 * Adds a tracker shard to the ring
+	 *
+	 * @param tracker
+	 */
+	public void addTracker(FloodingTracker tracker) {
+		trackers.add(tracker);
+		for (int i = 0; i < VIRTUAL_NODES; i++) {
+			ring.put(
+					idSpace.createIDUsingSHA1("tracker-"
+							+ tracker.getHost().getId().valueAsString() + "-"
+							+ i), tracker);
+		}
+	}
+
+	/**
+	 * The tracker shard that is responsible for the given peer
+	 *
+	 * @param peer
+	 * @return the tracker or null, if there is no tracker at all
+	 */
+	public FloodingTracker getResponsibleTracker(INodeID peer) {
+		if (ring.isEmpty()) {
+			return null;
+		}
+		Entry<UniqueID, FloodingTracker> entry = ring.ceilingEntry(idSpace
+				.createIDUsingSHA1(peer.valueAsString()));
+		if (entry == null) {
+			// wrap around
+			entry = ring.firstEntry();
+		}
+		return entry.getValue();
+	}
+
+	/**
+	 * All tracker shards, in the order they were added
+	 *
+	 * @return
+	 */
+	public List<FloodingTracker> getTrackers() {
+		return Collections.unmodifiableList(trackers);
+	}
+
+	public int size() {
+		return trackers.size();
+	}
+
+	public boolean isEmpty() {
+		return trackers.isEmpty();
+	}
+
+}
@@ -0,0 +1,46 @@
+package de.tudarmstadt.maki.simonstrator.overlay.kademlia;
+
+import de.tudarmstadt.maki.simonstrator.api.common.graph.INodeID;
+import de.tudarmstadt.maki.simonstrator.api.component.network.NetworkComponent.NetInterfaceName;
+import de.tudarmstadt.maki.simonstrator.api.component.transport.TransInfo;
+import de.tudarmstadt.maki.simonstrator.overlay.BasicOverlayContact;
+import de.tudarmstadt.maki.simonstrator.overlay.OverlayNodeID;
+
+/**
+ * Contact of a {@link KademliaNode}, carries the position of the node in the
+ * ID space in addition to the host ID. Equality is based on the host ID.
+ */
+public class KademliaContact extends BasicOverlayContact {
+
+	private static final long serialVersionUID = 1L;
+
+	private final OverlayNodeID overlayID;
+
+	public KademliaContact(INodeID nodeID, TransInfo transInfo,
+			OverlayNodeID overlayID) {
+		super(nodeID, NetInterfaceName.ETHERNET, transInfo);
+		this.overlayID = overlayID;
+	}
+
+	/**
+	 * Position of the node in the ID space
+	 * 
+	 * @return
+	 */
+	public OverlayNodeID getOverlayID() {
+		return overlayID;
+	}
+
+	@Override
+	public int getTransmissionSize() {
+		return super.getTransmissionSize()
+				+ (overlayID.getNumberOfBits() + 7) / 8;
+	}
+
+	@Override
+	public String toString() {
+		return "kC" + getNodeID() + " id: " + overlayID + " net: "
+				+ getTransInfo();
+	}
+
+}
@@ -0,0 +1,428 @@
+package de.tudarmstadt.maki.simonstrator.overlay.kademlia;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import de.tudarmstadt.maki.simonstrator.api.Host;
+import de.tudarmstadt.maki.simonstrator.api.Message;
+import de.tudarmstadt.maki.simonstrator.api.Monitor;
+import de.tudarmstadt.maki.simonstrator.api.Monitor.Level;
+import de.tudarmstadt.maki.simonstrator.api.Time;
+import de.tudarmstadt.maki.simonstrator.api.component.network.NetInterface;
+import de.tudarmstadt.maki.simonstrator.api.component.overlay.OverlayContact;
+import de.tudarmstadt.maki.simonstrator.api.component.transport.MessageBasedTransport;
+import de.tudarmstadt.maki.simonstrator.api.component.transport.ProtocolNotAvailableException;
+import de.tudarmstadt.maki.simonstrator.api.component.transport.TransInfo;
+import de.tudarmstadt.maki.simonstrator.api.component.transport.TransMessageCallback;
+import de.tudarmstadt.maki.simonstrator.api.component.transport.TransMessageListener;
+import de.tudarmstadt.maki.simonstrator.api.component.transport.protocol.UDP;
+import de.tudarmstadt.maki.simonstrator.api.operation.Operation;
+import de.tudarmstadt.maki.simonstrator.api.operation.OperationCallback;
+import de.tudarmstadt.maki.simonstrator.api.operation.Operations;
+import de.tudarmstadt.maki.simonstrator.overlay.AbstractOverlayNode;
+import de.tudarmstadt.maki.simonstrator.overlay.DefaultIDSpace;
+import de.tudarmstadt.maki.simonstrator.overlay.OverlayNodeID;
+import de.tudarmstadt.maki.simonstrator.overlay.kademlia.KademliaSettings.Params;
+import de.tudarmstadt.maki.simonstrator.overlay.kademlia.KademliaSettings.Times;
+import de.tudarmstadt.maki.simonstrator.overlay.kademlia.messages.AbstractKademliaMessage;
+import de.tudarmstadt.maki.simonstrator.overlay.kademlia.messages.FindNodeMessage;
+import de.tudarmstadt.maki.simonstrator.overlay.kademlia.messages.FindNodeReplyMessage;
+import de.tudarmstadt.maki.simonstrator.overlay.kademlia.messages.StoreMessage;
+import de.tudarmstadt.maki.simonstrator.overlay.kademlia.operations.BucketRefreshOperation;
+import de.tudarmstadt.maki.simonstrator.overlay.kademlia.operations.LookupOperation;
+import de.tudarmstadt.maki.simonstrator.overlay.kademlia.operations.PublishOperation;
+
+/**
+ * A node of a Kademlia-style DHT: nodes and keys are placed in a
+ * {@link DefaultIDSpace} of {@link Params#ID_BITS} (via SHA-1 of the host ID
+ * and of the key), contacts are kept in XOR-metric k-buckets (see
+ * {@link RoutingTable}) and lookups converge to the k closest nodes in
+ * O(log N) steps with {@link Params#ALPHA} RPCs in parallel (see
+ * {@link LookupOperation}).
+ *
+ * Content is announced like in the flooding overlay: a node that holds
+ * content with a key stores a provider record at the k nodes closest to the
+ * key, {@link #lookup(String, OperationCallback)} returns the providers.
+ * Content added while the node is offline is announced once it (re-)joined.
+ * Buckets are refreshed and the records republished by the
+ * {@link BucketRefreshOperation}.
+ *
+ * Joining nodes bootstrap via a random node that is already present (global
+ * knowledge, see {@link KademliaNodeFactory#getBootstrapContact}).
+ */
+public class KademliaNode extends AbstractOverlayNode implements
+		TransMessageListener {
+
+	private final KademliaSettings settings;
+
+	private final DefaultIDSpace idSpace;
+
+	private final int localPort;
+
+	private MessageBasedTransport transport;
+
+	private KademliaContact localContact;
+
+	private RoutingTable routingTable;
+
+	/**
+	 * Provider records we store for other nodes, with their expiration time
+	 */
+	private final Map<OverlayNodeID, Map<KademliaContact, Long>> providers = new HashMap<OverlayNodeID, Map<KademliaContact, Long>>();
+
+	/**
+	 * Keys of the content held by this node, by their ID
+	 */
+	private final Map<OverlayNodeID, String> localContent = new LinkedHashMap<OverlayNodeID, String>();
+
+	private BucketRefreshOperation refreshOperation;
+
+	/**
+	 * Join again as soon as the host is back online
+	 */
+	private boolean rejoinWhenOnline = false;
+
+	public KademliaNode(Host host, int port, KademliaSettings settings) {
+		super(host);
+		this.localPort = port;
+		this.settings = settings;
+		this.idSpace = new DefaultIDSpace(settings.getParam(Params.ID_BITS));
+	}
+
+	@Override
+	public void initialize() {
+		super.initialize();
+
+		NetInterface net = getHost().getNetworkComponent()
+				.getNetworkInterfaces().iterator().next();
+		try {
+			transport = getHost().getTransportComponent().getProtocol(
+					UDP.class, net.getLocalInetAddress(), localPort);
+		} catch (ProtocolNotAvailableException e) {
+			// Something went terribly wrong
+			e.printStackTrace();
+		}
+
+		OverlayNodeID overlayID = (OverlayNodeID) idSpace
+				.createIDUsingSHA1(String.valueOf(getHost().getId().value()));
+		localContact = KademliaNodeFactory.intern(new KademliaContact(getHost()
+				.getId(), transport.getTransInfo(), overlayID));
+		routingTable = new RoutingTable(overlayID, idSpace,
+				settings.getParam(Params.BUCKET_SIZE));
+
+		transport.setTransportMessageListener(this);
+
+		KademliaNodeFactory.register(this);
+
+		setPeerStatus(PeerStatus.ABSENT);
+	}
+
+	@Override
+	public void messageArrived(Message msg, TransInfo sender, int commID) {
+		if (!(msg instanceof AbstractKademliaMessage)) {
+			return;
+		}
+		KademliaContact senderContact = KademliaNodeFactory
+				.intern(((AbstractKademliaMessage) msg).getSenderContact());
+		if (msg instanceof FindNodeMessage) {
+			FindNodeMessage request = (FindNodeMessage) msg;
+			List<KademliaContact> closest = routingTable.getClosest(
+					request.getTarget(),
+					settings.getParam(Params.BUCKET_SIZE) + 1);
+			closest.remove(senderContact);
+			if (closest.size() > settings.getParam(Params.BUCKET_SIZE)) {
+				closest.remove(closest.size() - 1);
+			}
+			List<KademliaContact> found;
+			if (request.isFindValue()) {
+				found = getProviders(request.getTarget());
+			} else {
+				found = Collections.emptyList();
+			}
+			transport.sendReply(new FindNodeReplyMessage(localContact,
+					request, closest, found), sender.getNetId(), sender
+					.getPort(), commID);
+		} else if (msg instanceof StoreMessage) {
+			StoreMessage store = (StoreMessage) msg;
+			Map<KademliaContact, Long> records = providers.get(store.getKey());
+			if (records == null) {
+				records = new LinkedHashMap<KademliaContact, Long>();
+				providers.put(store.getKey(), records);
+			}
+			records.put(senderContact, Time.getCurrentTime()
+					+ settings.getTime(Times.PROVIDER_TTL));
+		}
+		// Replies of our RPCs arrive via the TransMessageCallback
+		routingTable.contactSeen(senderContact);
+	}
+
+	/**
+	 * Sends an RPC of a lookup to the contact, the reply or a timeout is
+	 * passed to the callback.
+	 *
+	 * @param msg
+	 * @param receiver
+	 * @param callback
+	 * @return the communication ID
+	 */
+	public int sendRequest(FindNodeMessage msg, KademliaContact receiver,
+			TransMessageCallback callback) {
+		return transport.sendAndWait(msg, receiver.getNetID(), receiver
+				.getTransInfo().getPort(), callback,
+				settings.getTime(Times.RPC_TIMEOUT));
+	}
+
+	public void sendToNode(AbstractKademliaMessage msg,
+			KademliaContact receiver) {
+		transport.send(msg, receiver.getNetID(), receiver.getTransInfo()
+				.getPort());
+	}
+
+	/**
+	 * Known providers of the key (including this node), expired records are
+	 * removed.
+	 *
+	 * @param key
+	 * @return
+	 */
+	public List<KademliaContact> getProviders(OverlayNodeID key) {
+		List<KademliaContact> found = new ArrayList<KademliaContact>();
+		if (localContent.containsKey(key)) {
+			found.add(localContact);
+		}
+		Map<KademliaContact, Long> records = providers.get(key);
+		if (records == null) {
+			return found;
+		}
+		long now = Time.getCurrentTime();
+		Iterator<Entry<KademliaContact, Long>> it = records.entrySet()
+				.iterator();
+		while (it.hasNext()) {
+			Entry<KademliaContact, Long> record = it.next();
+			if (record.getValue() <= now) {
+				it.remove();
+			} else if (!record.getKey().equals(localContact)) {
+				found.add(record.getKey());
+			}
+		}
+		if (records.isEmpty()) {
+			providers.remove(key);
+		}
+		return found;
+	}
+
+	/**
+	 * Removes all expired provider records (called with each refresh)
+	 */
+	public void expireProviders() {
+		long now = Time.getCurrentTime();
+		Iterator<Map<KademliaContact, Long>> keys = providers.values()
+				.iterator();
+		while (keys.hasNext()) {
+			Map<KademliaContact, Long> records = keys.next();
+			Iterator<Long> it = records.values().iterator();
+			while (it.hasNext()) {
+				if (it.next() <= now) {
+					it.remove();
+				}
+			}
+			if (records.isEmpty()) {
+				keys.remove();
+			}
+		}
+	}
+
+	/**
+	 * Position of the key in the ID space
+	 *
+	 * @param key
+	 * @return
+	 */
+	public OverlayNodeID getKeyID(String key) {
+		return (OverlayNodeID) idSpace.createIDUsingSHA1(key);
+	}
+
+	/**
+	 * Adds content with the given key to this node and announces the node as
+	 * provider, i.e., the node is returned as result of lookups for the key
+	 *
+	 * @param key
+	 */
+	public void addLocalContent(String key) {
+		OverlayNodeID id = getKeyID(key);
+		localContent.put(id, key);
+		if (isPresent()) {
+			new PublishOperation(this, id, Operations.getEmptyCallback())
+					.scheduleImmediately();
+		}
+	}
+
+	/**
+	 * Announces this node as provider of all its local content
+	 */
+	public void publishLocalContent() {
+		for (OverlayNodeID key : localContent.keySet()) {
+			new PublishOperation(this, key, Operations.getEmptyCallback())
+					.scheduleImmediately();
+		}
+	}
+
+	/**
+	 * Removes the content, the provider records expire after
+	 * {@link Times#PROVIDER_TTL}
+	 *
+	 * @param key
+	 */
+	public void removeLocalContent(String key) {
+		localContent.remove(getKeyID(key));
+	}
+
+	public boolean hasLocalContent(String key) {
+		return localContent.containsKey(getKeyID(key));
+	}
+
+	/**
+	 * IDs of the keys of the content held by this node
+	 *
+	 * @return
+	 */
+	public List<OverlayNodeID> getLocalContentIDs() {
+		return new ArrayList<OverlayNodeID>(localContent.keySet());
+	}
+
+	/**
+	 * Searches the providers of the given key, see {@link LookupOperation}
+	 *
+	 * @param key
+	 * @param callback
+	 * @return the scheduled operation
+	 */
+	public LookupOperation lookup(String key,
+			OperationCallback<List<KademliaContact>> callback) {
+		LookupOperation op = new LookupOperation(this, getKeyID(key), true,
+				callback);
+		op.scheduleImmediately();
+		return op;
+	}
+
+	/**
+	 * Searches the k nodes closest to the target, see {@link LookupOperation}
+	 *
+	 * @param target
+	 * @param callback
+	 * @return the scheduled operation
+	 */
+	public LookupOperation findNode(OverlayNodeID target,
+			OperationCallback<List<KademliaContact>> callback) {
+		LookupOperation op = new LookupOperation(this, target, false,
+				callback);
+		op.scheduleImmediately();
+		return op;
+	}
+
+	/**
+	 * Join the overlay: look up our own ID via a bootstrap node, then
+	 * refresh all buckets further away than our closest neighbor.
+	 */
+	public void join() {
+		if (getPeerStatus() != PeerStatus.ABSENT) {
+			// Avoid duplicate joining
+			return;
+		}
+		setPeerStatus(PeerStatus.TO_JOIN);
+
+		KademliaContact bootstrap = KademliaNodeFactory
+				.getBootstrapContact(this);
+		if (bootstrap == null) {
+			// First node
+			joined();
+			return;
+		}
+		routingTable.contactSeen(bootstrap);
+		findNode(localContact.getOverlayID(),
+				new OperationCallback<List<KademliaContact>>() {
+
+					@Override
+					public void calledOperationSucceeded(
+							Operation<List<KademliaContact>> op) {
+						joined();
+					}
+
+					@Override
+					public void calledOperationFailed(
+							Operation<List<KademliaContact>> op) {
+						setPeerStatus(PeerStatus.ABSENT);
+						Monitor.log(KademliaNode.class, Level.DEBUG,
+								KademliaNode.this + ": Join failed!");
+					}
+				});
+	}
+
+	private void joined() {
+		setPeerStatus(PeerStatus.PRESENT);
+		Monitor.log(KademliaNode.class, Level.DEBUG, this + ": Join succeeded!");
+		refreshOperation = new BucketRefreshOperation(this,
+				Operations.getEmptyCallback());
+		refreshOperation.start();
+		// the join lookup filled the table, announce content held across
+		// offline periods or added before the join
+		publishLocalContent();
+	}
+
+	public KademliaSettings getSettings() {
+		return settings;
+	}
+
+	public DefaultIDSpace getIDSpace() {
+		return idSpace;
+	}
+
+	public RoutingTable getRoutingTable() {
+		return routingTable;
+	}
+
+	public MessageBasedTransport getTransport() {
+		return transport;
+	}
+
+	@Override
+	public OverlayContact getLocalOverlayContact() {
+		return localContact;
+	}
+
+	@Override
+	public void wentOffline(Host host, NetInterface netInterface) {
+		/*
+		 * Our contacts will notice with their next RPC. The routing table is
+		 * kept for the rejoin.
+		 */
+		if (refreshOperation != null) {
+			refreshOperation.stop();
+			refreshOperation = null;
+		}
+		if (getPeerStatus() != PeerStatus.ABSENT) {
+			rejoinWhenOnline = true;
+			setPeerStatus(PeerStatus.ABSENT);
+		}
+	}
+
+	@Override
+	public void wentOnline(Host host, NetInterface netInterface) {
+		if (rejoinWhenOnline) {
+			rejoinWhenOnline = false;
+			join();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "[kademlia " + localContact.getNodeID() + "]";
+	}
+
+}
@@ -0,0 +1,115 @@
+package de.tudarmstadt.maki.simonstrator.overlay.kademlia;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import de.tudarmstadt.maki.simonstrator.api.Host;
+import de.tudarmstadt.maki.simonstrator.api.Monitor;
+import de.tudarmstadt.maki.simonstrator.api.Monitor.Level;
+import de.tudarmstadt.maki.simonstrator.api.Randoms;
+import de.tudarmstadt.maki.simonstrator.api.component.HostComponentFactory;
+import de.tudarmstadt.maki.simonstrator.api.component.overlay.OverlayComponent;
+import de.tudarmstadt.maki.simonstrator.overlay.ContactPool;
+
+/**
+ * Creates {@link KademliaNode}s, configured via {@link KademliaSettings}.
+ * Also provides the bootstrap contacts for joining nodes, based on global
+ * knowledge of all nodes of the simulation.
+ */
+public class KademliaNodeFactory implements HostComponentFactory {
+
+	public static final int DEFAULT_NODE_PORT = 4000;
+
+	/**
+	 * Random picks before the bootstrap node is searched linearly
+	 */
+	private static final int BOOTSTRAP_PICKS = 16;
+
+	private static final Random random = Randoms
+			.getRandom(KademliaNodeFactory.class);
+
+	/**
+	 * All nodes of the simulation
+	 */
+	private static List<KademliaNode> nodes = new ArrayList<KademliaNode>();
+
+	/**
+	 * Canonical contacts of all nodes
+	 */
+	private static final ContactPool<KademliaContact> contactPool = new ContactPool<KademliaContact>();
+
+	private KademliaSettings settings;
+
+	public KademliaNodeFactory() {
+		// Drop the nodes of a previous run in this JVM
+		nodes = new ArrayList<KademliaNode>();
+		contactPool.clear();
+	}
+
+	/**
+	 * Allows the configuration of settings on a per-host basis
+	 * 
+	 * @param settings
+	 */
+	public void setSettings(KademliaSettings settings) {
+		this.settings = settings;
+	}
+
+	@Override
+	public OverlayComponent createComponent(Host host) {
+		if (settings == null) {
+			System.err.println("You did not configure any settings. Default Settings will be used!");
+			settings = new KademliaSettings();
+		}
+		KademliaNode node = new KademliaNode(host, DEFAULT_NODE_PORT,
+				settings.clone());
+		Monitor.log(KademliaNodeFactory.class, Level.DEBUG,
+				"Factory: New peer created: " + host.getId());
+		return node;
+	}
+
+	/**
+	 * The canonical instance of the contact, see {@link ContactPool}
+	 * 
+	 * @param contact
+	 * @return
+	 */
+	public static KademliaContact intern(KademliaContact contact) {
+		return contactPool.intern(contact);
+	}
+
+	/**
+	 * Called by the node once it is initialized
+	 * 
+	 * @param node
+	 */
+	static void register(KademliaNode node) {
+		nodes.add(node);
+	}
+
+	/**
+	 * A random node that is present in the overlay, used by joining nodes
+	 * 
+	 * @param joining
+	 * @return the contact or null, if there is no other node
+	 */
+	public static KademliaContact getBootstrapContact(KademliaNode joining) {
+		if (nodes.isEmpty()) {
+			return null;
+		}
+		for (int i = 0; i < BOOTSTRAP_PICKS; i++) {
+			KademliaNode node = nodes.get(random.nextInt(nodes.size()));
+			if (node != joining && node.isPresent()) {
+				return (KademliaContact) node.getLocalOverlayContact();
+			}
+		}
+		for (KademliaNode node : nodes) {
+			if (node != joining && node.isPresent()) {
+				return (KademliaContact) node.getLocalOverlayContact();
+			}
+		}
+		return null;
+	}
+
+}
@@ -0,0 +1,138 @@
+package de.tudarmstadt.maki.simonstrator.overlay.kademlia;
+
+import de.tudarmstadt.maki.simonstrator.api.Time;
+
+/**
+ * Parameters of the {@link KademliaNode}, same concept as the
+ * FloodingSettings: one object per node, overwritten via the configuration,
+ * e.g. "ALPHA:5;BUCKET_SIZE:8".
+ */
+public class KademliaSettings {
+
+	private final long[] times = new long[Times.values().length];
+
+	private final int[] params = new int[Params.values().length];
+
+	public KademliaSettings() {
+		// Default values
+		for (Times time : Times.values()) {
+			times[time.ordinal()] = time.getDefault();
+		}
+		for (Params param : Params.values()) {
+			params[param.ordinal()] = param.getDefault();
+		}
+	}
+
+	/**
+	 * Copy-constructor
+	 * 
+	 * @param toClone
+	 */
+	private KademliaSettings(KademliaSettings toClone) {
+		System.arraycopy(toClone.times, 0, times, 0, times.length);
+		System.arraycopy(toClone.params, 0, params, 0, params.length);
+	}
+
+	public int getParam(Params name) {
+		return params[name.ordinal()];
+	}
+
+	public void setParam(Params name, int value) {
+		params[name.ordinal()] = value;
+	}
+
+	public long getTime(Times name) {
+		return times[name.ordinal()];
+	}
+
+	public void setTime(Times name, long value) {
+		times[name.ordinal()] = value;
+	}
+
+	public void setOverwrite(String toOverwrite) {
+		String[] props = toOverwrite.split(";");
+		for (String prop : props) {
+			String[] val = prop.split(":");
+			parseProperty(val[0], val[1]);
+		}
+	}
+
+	private void parseProperty(String name, String value) {
+		try {
+			params[Params.valueOf(name).ordinal()] = Integer.parseInt(value);
+		} catch (IllegalArgumentException e) {
+			//
+		}
+		try {
+			times[Times.valueOf(name).ordinal()] = Time.parseTime(value);
+		} catch (IllegalArgumentException e) {
+			//
+		}
+	}
+
+	public enum Params {
+
+		/**
+		 * Contacts per k-bucket (k), also the number of nodes a key is stored
+		 * at and the number of nodes a lookup converges to
+		 */
+		BUCKET_SIZE(20),
+
+		/**
+		 * Maximum number of RPCs a lookup has in flight at any time
+		 */
+		ALPHA(3),
+
+		/**
+		 * Size of the ID space
+		 */
+		ID_BITS(160);
+
+		private final int defaultValue;
+
+		private Params(int defaultValue) {
+			this.defaultValue = defaultValue;
+		}
+
+		protected int getDefault() {
+			return defaultValue;
+		}
+
+	}
+
+	public enum Times {
+
+		/**
+		 * Timeout of a single RPC of a lookup
+		 */
+		RPC_TIMEOUT(1 * Time.SECOND),
+
+		/**
+		 * Buckets without a lookup within this time are refreshed, local
+		 * content is republished with the same interval
+		 */
+		REFRESH_INTERVAL(30 * Time.MINUTE),
+
+		/**
+		 * Validity of a stored provider record
+		 */
+		PROVIDER_TTL(1 * Time.HOUR);
+
+		private final long defaultValue;
+
+		private Times(long defaultValue) {
+			this.defaultValue = defaultValue;
+		}
+
+		protected long getDefault() {
+			return defaultValue;
+		}
+
+	}
+
+	@Override
+	public KademliaSettings clone() {
+		return new KademliaSettings(this);
+	}
+
+}
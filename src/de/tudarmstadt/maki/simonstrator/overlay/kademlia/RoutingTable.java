@@ -0,0 +1,258 @@
+package de.tudarmstadt.maki.simonstrator.overlay.kademlia;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import de.tudarmstadt.maki.simonstrator.overlay.DefaultIDSpace;
+import de.tudarmstadt.maki.simonstrator.overlay.OverlayNodeID;
+import de.tudarmstadt.maki.simonstrator.overlay.kademlia.KademliaSettings.Params;
+
+/**
+ * The k-buckets of a {@link KademliaNode}. Bucket i holds up to
+ * {@link Params#BUCKET_SIZE} contacts whose XOR distance to the local ID has
+ * its most significant bit at position i, i.e., the contacts that share
+ * exactly (numberOfBits - 1 - i) leading bits with the local ID.
+ *
+ * Contacts are kept in least-recently seen order. If a bucket is full, newly
+ * seen contacts go to a replacement cache of the same size and replace
+ * contacts that fail to answer an RPC (instead of pinging the oldest
+ * contact).
+ */
+public class RoutingTable {
+
+	private final OverlayNodeID localID;
+
+	private final DefaultIDSpace idSpace;
+
+	private final int bucketSize;
+
+	private final Bucket[] buckets;
+
+	private int size = 0;
+
+	private static class Bucket {
+
+		/**
+		 * Least-recently seen first
+		 */
+		private final LinkedList<KademliaContact> contacts = new LinkedList<KademliaContact>();
+
+		/**
+		 * Least-recently seen first
+		 */
+		private final LinkedList<KademliaContact> replacements = new LinkedList<KademliaContact>();
+
+		/**
+		 * Time of the last lookup for an ID in this bucket, -1 if none
+		 */
+		private long lastLookup = -1;
+
+	}
+
+	public RoutingTable(OverlayNodeID localID, DefaultIDSpace idSpace,
+			int bucketSize) {
+		this.localID = localID;
+		this.idSpace = idSpace;
+		this.bucketSize = bucketSize;
+		this.buckets = new Bucket[idSpace.getNumberOfBits()];
+		for (int i = 0; i < buckets.length; i++) {
+			buckets[i] = new Bucket();
+		}
+	}
+
+	/**
+	 * Index of the bucket responsible for the ID, -1 for the local ID
+	 *
+	 * @param id
+	 * @return
+	 */
+	public int getBucketIndex(OverlayNodeID id) {
+		return idSpace.getNumberOfBits() - 1
+				- idSpace.getCommonPrefixLength(localID, id);
+	}
+
+	/**
+	 * We received a message from the contact: it is added to its bucket or
+	 * moved to the tail, if there is space, and to the replacement cache
+	 * otherwise.
+	 *
+	 * @param contact
+	 */
+	public void contactSeen(KademliaContact contact) {
+		int index = getBucketIndex(contact.getOverlayID());
+		if (index < 0) {
+			return;
+		}
+		Bucket bucket = buckets[index];
+		if (bucket.contacts.remove(contact)) {
+			bucket.contacts.addLast(contact);
+		} else if (bucket.contacts.size() < bucketSize) {
+			bucket.contacts.addLast(contact);
+			size++;
+		} else {
+			bucket.replacements.remove(contact);
+			bucket.replacements.addLast(contact);
+			if (bucket.replacements.size() > bucketSize) {
+				bucket.replacements.removeFirst();
+			}
+		}
+	}
+
+	/**
+	 * The contact did not answer an RPC: it is removed and replaced by the
+	 * most recently seen contact of the replacement cache.
+	 *
+	 * @param contact
+	 */
+	public void contactFailed(KademliaContact contact) {
+		int index = getBucketIndex(contact.getOverlayID());
+		if (index < 0) {
+			return;
+		}
+		Bucket bucket = buckets[index];
+		bucket.replacements.remove(contact);
+		if (bucket.contacts.remove(contact)) {
+			size--;
+			if (!bucket.replacements.isEmpty()) {
+				bucket.contacts.addLast(bucket.replacements.removeLast());
+				size++;
+			}
+		}
+	}
+
+	public boolean contains(KademliaContact contact) {
+		int index = getBucketIndex(contact.getOverlayID());
+		return index >= 0 && buckets[index].contacts.contains(contact);
+	}
+
+	/**
+	 * The known contacts closest to the target (XOR metric), closest first.
+	 * The bucket of the target is visited first, then the buckets of lower
+	 * index (all of them are equally far on the most significant bit) and
+	 * then the buckets of higher index in increasing order, so that only
+	 * the contacts within each step have to be sorted.
+	 *
+	 * @param target
+	 * @param count
+	 * @return
+	 */
+	public List<KademliaContact> getClosest(final OverlayNodeID target,
+			int count) {
+		Comparator<KademliaContact> byDistance = new Comparator<KademliaContact>() {
+			@Override
+			public int compare(KademliaContact a, KademliaContact b) {
+				return idSpace.compareXorDistance(target, a.getOverlayID(),
+						b.getOverlayID());
+			}
+		};
+		List<KademliaContact> closest = new ArrayList<KademliaContact>(count);
+		int targetIndex = getBucketIndex(target);
+		if (targetIndex >= 0) {
+			addSorted(closest, buckets[targetIndex].contacts, byDistance, count);
+		}
+		if (closest.size() < count && targetIndex > 0) {
+			List<KademliaContact> lower = new ArrayList<KademliaContact>();
+			for (int i = 0; i < targetIndex; i++) {
+				lower.addAll(buckets[i].contacts);
+			}
+			addSorted(closest, lower, byDistance, count);
+		}
+		for (int i = targetIndex + 1; i < buckets.length
+				&& closest.size() < count; i++) {
+			addSorted(closest, buckets[i].contacts, byDistance, count);
+		}
+		return closest;
+	}
+
+	private static void addSorted(List<KademliaContact> closest,
+			List<KademliaContact> contacts,
+			Comparator<KademliaContact> byDistance, int count) {
+		if (contacts.isEmpty()) {
+			return;
+		}
+		List<KademliaContact> sorted = new ArrayList<KademliaContact>(contacts);
+		Collections.sort(sorted, byDistance);
+		for (KademliaContact contact : sorted) {
+			if (closest.size() >= count) {
+				return;
+			}
+			closest.add(contact);
+		}
+	}
+
+	/**
+	 * A lookup for the target was started, its bucket does not need a
+	 * refresh for now
+	 *
+	 * @param target
+	 * @param now
+	 */
+	public void lookupStarted(OverlayNodeID target, long now) {
+		int index = getBucketIndex(target);
+		if (index >= 0) {
+			buckets[index].lastLookup = now;
+		}
+	}
+
+	/**
+	 * Buckets without a lookup within the given interval. Buckets below the
+	 * lowest non-empty one are skipped, they are (almost always) empty, as
+	 * there are no other nodes that close to us.
+	 *
+	 * @param now
+	 * @param interval
+	 * @return bucket indices
+	 */
+	public List<Integer> getBucketsToRefresh(long now, long interval) {
+		List<Integer> stale = new ArrayList<Integer>();
+		int lowest = 0;
+		while (lowest < buckets.length && buckets[lowest].contacts.isEmpty()) {
+			lowest++;
+		}
+		for (int i = lowest; i < buckets.length; i++) {
+			if (buckets[i].lastLookup < 0
+					|| now - buckets[i].lastLookup >= interval) {
+				stale.add(i);
+			}
+		}
+		return stale;
+	}
+
+	/**
+	 * A random ID that falls into the given bucket
+	 *
+	 * @param index
+	 * @param random
+	 * @return
+	 */
+	public OverlayNodeID getRandomID(int index, Random random) {
+		BigInteger prefix = localID.getBigInteger().flipBit(index)
+				.shiftRight(index).shiftLeft(index);
+		return (OverlayNodeID) idSpace.createID(prefix.or(new BigInteger(
+				index, random)));
+	}
+
+	/**
+	 * Number of contacts in all buckets
+	 *
+	 * @return
+	 */
+	public int size() {
+		return size;
+	}
+
+	public void clear() {
+		for (Bucket bucket : buckets) {
+			bucket.contacts.clear();
+			bucket.replacements.clear();
+			bucket.lastLookup = -1;
+		}
+		size = 0;
+	}
+
+}
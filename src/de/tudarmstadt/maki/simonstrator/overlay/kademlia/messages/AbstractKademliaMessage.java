@@ -0,0 +1,71 @@
+package de.tudarmstadt.maki.simonstrator.overlay.kademlia.messages;
+
+import de.tudarmstadt.maki.simonstrator.api.Message;
+import de.tudarmstadt.maki.simonstrator.overlay.AbstractOverlayMessage;
+import de.tudarmstadt.maki.simonstrator.overlay.OverlayNodeID;
+import de.tudarmstadt.maki.simonstrator.overlay.kademlia.KademliaContact;
+
+/**
+ * Base for all messages of the Kademlia overlay. The messages carry the ID
+ * of the operation they belong to (see {@link AbstractOverlayMessage}), use
+ * the reply-constructor to pass it on.
+ */
+public abstract class AbstractKademliaMessage extends AbstractOverlayMessage {
+
+	private static final long serialVersionUID = 1L;
+
+	private final long contentSize;
+
+	/**
+	 * A new message on behalf of the given operation
+	 * 
+	 * @param sender
+	 * @param operationID
+	 * @param contentSize
+	 *            size of the content of the extending message (without the
+	 *            sender)
+	 */
+	protected AbstractKademliaMessage(KademliaContact sender,
+			int operationID, long contentSize) {
+		super(sender, null, operationID);
+		this.contentSize = contentSize;
+	}
+
+	/**
+	 * Reply-constructor: the operation ID of the received message is used
+	 * 
+	 * @param sender
+	 * @param receivedMsg
+	 * @param contentSize
+	 */
+	protected AbstractKademliaMessage(KademliaContact sender,
+			AbstractOverlayMessage receivedMsg, long contentSize) {
+		super(sender, null, receivedMsg);
+		this.contentSize = contentSize;
+	}
+
+	public KademliaContact getSenderContact() {
+		return (KademliaContact) getSender();
+	}
+
+	@Override
+	public long getSize() {
+		return super.getSize() + contentSize;
+	}
+
+	@Override
+	public Message getPayload() {
+		return null;
+	}
+
+	/**
+	 * Transmission size of an ID in byte
+	 * 
+	 * @param id
+	 * @return
+	 */
+	protected static int sizeOf(OverlayNodeID id) {
+		return (id.getNumberOfBits() + 7) / 8;
+	}
+
+}
@@ -0,0 +1,47 @@
+package de.tudarmstadt.maki.simonstrator.overlay.kademlia.messages;
+
+import de.tudarmstadt.maki.simonstrator.overlay.OverlayNodeID;
+import de.tudarmstadt.maki.simonstrator.overlay.kademlia.KademliaContact;
+
+/**
+ * RPC of a lookup: asks for the contacts closest to the target (FIND_NODE)
+ * and, if requested, for the providers of the target key (FIND_VALUE).
+ * Answered with a {@link FindNodeReplyMessage}.
+ */
+public class FindNodeMessage extends AbstractKademliaMessage {
+
+	private static final long serialVersionUID = 1L;
+
+	private final OverlayNodeID target;
+
+	private final boolean findValue;
+
+	/**
+	 * 
+	 * @param sender
+	 * @param target
+	 * @param findValue
+	 *            true, if providers of the target key are requested
+	 * @param operationID
+	 */
+	public FindNodeMessage(KademliaContact sender, OverlayNodeID target,
+			boolean findValue, int operationID) {
+		super(sender, operationID, sizeOf(target) + 1);
+		this.target = target;
+		this.findValue = findValue;
+	}
+
+	public OverlayNodeID getTarget() {
+		return target;
+	}
+
+	public boolean isFindValue() {
+		return findValue;
+	}
+
+	@Override
+	public String toString() {
+		return (findValue ? "FIND_VALUE " : "FIND_NODE ") + target;
+	}
+
+}
@@ -0,0 +1,60 @@
+package de.tudarmstadt.maki.simonstrator.overlay.kademlia.messages;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import de.tudarmstadt.maki.simonstrator.overlay.kademlia.KademliaContact;
+
+/**
+ * Answer to a {@link FindNodeMessage}: the contacts closest to the target
+ * that are known to the sender and, for FIND_VALUE, the providers of the key
+ * known to the sender.
+ */
+public class FindNodeReplyMessage extends AbstractKademliaMessage {
+
+	private static final long serialVersionUID = 1L;
+
+	private final List<KademliaContact> closest;
+
+	private final List<KademliaContact> providers;
+
+	/**
+	 * 
+	 * @param sender
+	 * @param request
+	 * @param closest
+	 * @param providers
+	 *            empty for FIND_NODE
+	 */
+	public FindNodeReplyMessage(KademliaContact sender,
+			FindNodeMessage request, List<KademliaContact> closest,
+			List<KademliaContact> providers) {
+		super(sender, request, sizeOf(closest) + sizeOf(providers));
+		this.closest = Collections.unmodifiableList(closest);
+		this.providers = Collections.unmodifiableList(providers);
+	}
+
+	public List<KademliaContact> getClosest() {
+		return closest;
+	}
+
+	public List<KademliaContact> getProviders() {
+		return providers;
+	}
+
+	private static long sizeOf(Collection<KademliaContact> contacts) {
+		long size = 0;
+		for (KademliaContact contact : contacts) {
+			size += contact.getTransmissionSize();
+		}
+		return size;
+	}
+
+	@Override
+	public String toString() {
+		return "FIND_NODE_REPLY closest:" + closest.size() + " providers:"
+				+ providers.size();
+	}
+
+}
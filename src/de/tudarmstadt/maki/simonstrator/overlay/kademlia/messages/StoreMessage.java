@@ -0,0 +1,33 @@
+package de.tudarmstadt.maki.simonstrator.overlay.kademlia.messages;
+
+import de.tudarmstadt.maki.simonstrator.overlay.OverlayNodeID;
+import de.tudarmstadt.maki.simonstrator.overlay.kademlia.KademliaContact;
+import de.tudarmstadt.maki.simonstrator.overlay.kademlia.KademliaSettings.Times;
+
+/**
+ * Announces the sender as provider of the key. The receiver stores the
+ * record for {@link Times#PROVIDER_TTL}, the provider republishes it
+ * periodically.
+ */
+public class StoreMessage extends AbstractKademliaMessage {
+
+	private static final long serialVersionUID = 1L;
+
+	private final OverlayNodeID key;
+
+	public StoreMessage(KademliaContact sender, OverlayNodeID key,
+			int operationID) {
+		super(sender, operationID, sizeOf(key));
+		this.key = key;
+	}
+
+	public OverlayNodeID getKey() {
+		return key;
+	}
+
+	@Override
+	public String toString() {
+		return "STORE " + key;
+	}
+
+}
@@ -0,0 +1,74 @@
+package de.tudarmstadt.maki.simonstrator.overlay.kademlia.operations;
+
+import java.util.List;
+import java.util.Random;
+
+import de.tudarmstadt.maki.simonstrator.api.Randoms;
+import de.tudarmstadt.maki.simonstrator.api.Time;
+import de.tudarmstadt.maki.simonstrator.api.operation.OperationCallback;
+import de.tudarmstadt.maki.simonstrator.api.operation.Operations;
+import de.tudarmstadt.maki.simonstrator.api.operation.PeriodicOperation;
+import de.tudarmstadt.maki.simonstrator.overlay.kademlia.KademliaContact;
+import de.tudarmstadt.maki.simonstrator.overlay.kademlia.KademliaNode;
+import de.tudarmstadt.maki.simonstrator.overlay.kademlia.KademliaSettings.Times;
+import de.tudarmstadt.maki.simonstrator.overlay.kademlia.RoutingTable;
+
+/**
+ * Executed every {@link Times#REFRESH_INTERVAL}: looks up a random ID in
+ * each bucket that saw no lookup within the interval (see
+ * {@link RoutingTable#getBucketsToRefresh(long, long)}), republishes the
+ * local content and drops expired provider records. The first execution
+ * right after joining fills the buckets of the joining node.
+ */
+public class BucketRefreshOperation extends
+		PeriodicOperation<KademliaNode, Object> {
+
+	private static final Random random = Randoms
+			.getRandom(BucketRefreshOperation.class);
+
+	private int numRefreshed = 0;
+
+	public BucketRefreshOperation(KademliaNode node,
+			OperationCallback<Object> callback) {
+		super(node, callback, node.getSettings().getTime(
+				Times.REFRESH_INTERVAL));
+	}
+
+	@Override
+	protected void executeOnce() {
+		KademliaNode node = getComponent();
+		if (!node.isPresent()) {
+			return;
+		}
+		long interval = node.getSettings().getTime(Times.REFRESH_INTERVAL);
+		RoutingTable routingTable = node.getRoutingTable();
+		numRefreshed = 0;
+		for (int index : routingTable.getBucketsToRefresh(
+				Time.getCurrentTime(), interval)) {
+			node.findNode(routingTable.getRandomID(index, random),
+					Operations.<List<KademliaContact>> getEmptyCallback());
+			numRefreshed++;
+		}
+		if (getIterationCount() > 1) {
+			// the first execution is right after the join, which publishes
+			node.publishLocalContent();
+		}
+		node.expireProviders();
+		operationFinished(true);
+	}
+
+	/**
+	 * Number of buckets refreshed with the last execution
+	 * 
+	 * @return
+	 */
+	public int getNumRefreshed() {
+		return numRefreshed;
+	}
+
+	@Override
+	public Object getResult() {
+		return null;
+	}
+
+}
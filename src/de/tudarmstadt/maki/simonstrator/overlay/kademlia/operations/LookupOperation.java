@@ -0,0 +1,274 @@
+package de.tudarmstadt.maki.simonstrator.overlay.kademlia.operations;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import de.tudarmstadt.maki.simonstrator.api.Message;
+import de.tudarmstadt.maki.simonstrator.api.Monitor;
+import de.tudarmstadt.maki.simonstrator.api.Monitor.Level;
+import de.tudarmstadt.maki.simonstrator.api.Time;
+import de.tudarmstadt.maki.simonstrator.api.component.transport.TransInfo;
+import de.tudarmstadt.maki.simonstrator.api.component.transport.TransMessageCallback;
+import de.tudarmstadt.maki.simonstrator.api.operation.AbstractOperation;
+import de.tudarmstadt.maki.simonstrator.api.operation.OperationCallback;
+import de.tudarmstadt.maki.simonstrator.overlay.DefaultIDSpace;
+import de.tudarmstadt.maki.simonstrator.overlay.OverlayNodeID;
+import de.tudarmstadt.maki.simonstrator.overlay.kademlia.KademliaContact;
+import de.tudarmstadt.maki.simonstrator.overlay.kademlia.KademliaNode;
+import de.tudarmstadt.maki.simonstrator.overlay.kademlia.KademliaNodeFactory;
+import de.tudarmstadt.maki.simonstrator.overlay.kademlia.KademliaSettings.Params;
+import de.tudarmstadt.maki.simonstrator.overlay.kademlia.KademliaSettings.Times;
+import de.tudarmstadt.maki.simonstrator.overlay.kademlia.messages.FindNodeMessage;
+import de.tudarmstadt.maki.simonstrator.overlay.kademlia.messages.FindNodeReplyMessage;
+
+/**
+ * Iterative Kademlia lookup. The shortlist starts with the k closest contacts
+ * of the routing table and is kept sorted by XOR distance to the target.
+ * Contacts among the k closest ones that did not fail are queried, closest
+ * first, with at most {@link Params#ALPHA} RPCs in flight. Every reply adds
+ * the contacts it carries and another RPC is sent, so the lookup does not
+ * wait for the slowest RPC of a round. Contacts that do not answer within
+ * {@link Times#RPC_TIMEOUT} are dropped from the routing table.
+ *
+ * The lookup ends when all of the k closest contacts answered or failed. A
+ * FIND_VALUE lookup ends with the first reply that contains providers of the
+ * key and succeeds if providers were found, a FIND_NODE lookup succeeds if at
+ * least one contact answered. All RPCs carry the ID of this operation, so
+ * that the traffic is attributed to the lookup.
+ */
+public class LookupOperation extends
+		AbstractOperation<KademliaNode, List<KademliaContact>> implements
+		TransMessageCallback {
+
+	private static enum State {
+		NEW, IN_FLIGHT, RESPONDED, FAILED
+	}
+
+	private static class Candidate {
+
+		private final KademliaContact contact;
+
+		private State state = State.NEW;
+
+		public Candidate(KademliaContact contact) {
+			this.contact = contact;
+		}
+
+	}
+
+	private final OverlayNodeID target;
+
+	private final boolean findValue;
+
+	private final int k;
+
+	private final int alpha;
+
+	/**
+	 * Sorted by distance to the target, closest first
+	 */
+	private final List<Candidate> shortlist = new ArrayList<Candidate>();
+
+	private final Set<KademliaContact> known = new HashSet<KademliaContact>();
+
+	/**
+	 * RPCs in flight by communication ID
+	 */
+	private final Map<Integer, Candidate> inFlight = new HashMap<Integer, Candidate>();
+
+	private final Set<KademliaContact> providers = new LinkedHashSet<KademliaContact>();
+
+	private long startTime;
+
+	private long duration = -1;
+
+	private int numRPCs = 0;
+
+	/**
+	 *
+	 * @param component
+	 * @param target
+	 * @param findValue
+	 *            true, if providers of the key are searched
+	 * @param callback
+	 */
+	public LookupOperation(KademliaNode component, OverlayNodeID target,
+			boolean findValue, OperationCallback<List<KademliaContact>> callback) {
+		super(component, callback);
+		this.target = target;
+		this.findValue = findValue;
+		this.k = component.getSettings().getParam(Params.BUCKET_SIZE);
+		this.alpha = component.getSettings().getParam(Params.ALPHA);
+	}
+
+	@Override
+	protected void execute() {
+		startTime = Time.getCurrentTime();
+		KademliaNode node = getComponent();
+		if (findValue) {
+			providers.addAll(node.getProviders(target));
+			if (!providers.isEmpty()) {
+				finish(true);
+				return;
+			}
+		}
+		known.add((KademliaContact) node.getLocalOverlayContact());
+		for (KademliaContact contact : node.getRoutingTable().getClosest(
+				target, k)) {
+			known.add(contact);
+			shortlist.add(new Candidate(contact));
+		}
+		node.getRoutingTable().lookupStarted(target, startTime);
+		sendRequests();
+	}
+
+	/**
+	 * Queries the closest new contacts among the k closest ones until
+	 * {@link Params#ALPHA} RPCs are in flight, finishes the lookup if there
+	 * is nothing left to wait for.
+	 */
+	private void sendRequests() {
+		int considered = 0;
+		for (Candidate candidate : shortlist) {
+			if (considered >= k || inFlight.size() >= alpha) {
+				break;
+			}
+			if (candidate.state == State.FAILED) {
+				continue;
+			}
+			considered++;
+			if (candidate.state == State.NEW) {
+				candidate.state = State.IN_FLIGHT;
+				numRPCs++;
+				FindNodeMessage request = new FindNodeMessage(
+						(KademliaContact) getComponent()
+								.getLocalOverlayContact(), target, findValue,
+						getOperationID());
+				int commID = getComponent().sendRequest(request,
+						candidate.contact, this);
+				inFlight.put(commID, candidate);
+			}
+		}
+		if (inFlight.isEmpty()) {
+			finish(!findValue && hasResponses());
+		}
+	}
+
+	@Override
+	public void receive(Message msg, TransInfo senderInfo, int commId) {
+		Candidate candidate = inFlight.remove(commId);
+		if (candidate == null || isFinished()) {
+			return;
+		}
+		candidate.state = State.RESPONDED;
+		FindNodeReplyMessage reply = (FindNodeReplyMessage) msg;
+		getComponent().getRoutingTable().contactSeen(candidate.contact);
+		if (findValue && !reply.getProviders().isEmpty()) {
+			for (KademliaContact provider : reply.getProviders()) {
+				providers.add(KademliaNodeFactory.intern(provider));
+			}
+			finish(true);
+			return;
+		}
+		for (KademliaContact contact : reply.getClosest()) {
+			if (known.add(contact)) {
+				insert(new Candidate(KademliaNodeFactory.intern(contact)));
+			}
+		}
+		sendRequests();
+	}
+
+	@Override
+	public void messageTimeoutOccured(int commId) {
+		Candidate candidate = inFlight.remove(commId);
+		if (candidate == null || isFinished()) {
+			return;
+		}
+		candidate.state = State.FAILED;
+		getComponent().getRoutingTable().contactFailed(candidate.contact);
+		sendRequests();
+	}
+
+	private void insert(Candidate candidate) {
+		DefaultIDSpace idSpace = getComponent().getIDSpace();
+		OverlayNodeID id = candidate.contact.getOverlayID();
+		int low = 0;
+		int high = shortlist.size();
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (idSpace.compareXorDistance(target,
+					shortlist.get(mid).contact.getOverlayID(), id) < 0) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		shortlist.add(low, candidate);
+	}
+
+	private boolean hasResponses() {
+		for (Candidate candidate : shortlist) {
+			if (candidate.state == State.RESPONDED) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void finish(boolean success) {
+		duration = Time.getCurrentTime() - startTime;
+		Monitor.log(KademliaNode.class, Level.DEBUG, this + ": lookup of "
+				+ target + " finished after " + numRPCs + " RPCs, "
+				+ providers.size() + " providers");
+		operationFinished(success);
+	}
+
+	/**
+	 * Number of RPCs sent so far
+	 *
+	 * @return
+	 */
+	public int getNumRPCs() {
+		return numRPCs;
+	}
+
+	/**
+	 * Time the lookup took, -1 while it is running
+	 *
+	 * @return
+	 */
+	public long getDuration() {
+		return duration;
+	}
+
+	public OverlayNodeID getTarget() {
+		return target;
+	}
+
+	/**
+	 * The providers of the key (FIND_VALUE) or the k closest contacts that
+	 * answered (FIND_NODE)
+	 */
+	@Override
+	public List<KademliaContact> getResult() {
+		if (findValue) {
+			return new ArrayList<KademliaContact>(providers);
+		}
+		List<KademliaContact> closest = new ArrayList<KademliaContact>(k);
+		for (Candidate candidate : shortlist) {
+			if (closest.size() >= k) {
+				break;
+			}
+			if (candidate.state == State.RESPONDED) {
+				closest.add(candidate.contact);
+			}
+		}
+		return closest;
+	}
+
+}
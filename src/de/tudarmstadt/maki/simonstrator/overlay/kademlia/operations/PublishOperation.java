@@ -0,0 +1,67 @@
+package de.tudarmstadt.maki.simonstrator.overlay.kademlia.operations;
+
+import java.util.List;
+
+import de.tudarmstadt.maki.simonstrator.api.operation.AbstractOperation;
+import de.tudarmstadt.maki.simonstrator.api.operation.Operation;
+import de.tudarmstadt.maki.simonstrator.api.operation.OperationCallback;
+import de.tudarmstadt.maki.simonstrator.overlay.OverlayNodeID;
+import de.tudarmstadt.maki.simonstrator.overlay.kademlia.KademliaContact;
+import de.tudarmstadt.maki.simonstrator.overlay.kademlia.KademliaNode;
+import de.tudarmstadt.maki.simonstrator.overlay.kademlia.messages.StoreMessage;
+
+/**
+ * Announces the local node as provider of a key: looks up the k nodes
+ * closest to the key and sends each of them a {@link StoreMessage}.
+ */
+public class PublishOperation extends AbstractOperation<KademliaNode, Object>
+		implements OperationCallback<List<KademliaContact>> {
+
+	private final OverlayNodeID key;
+
+	private int numStored = 0;
+
+	public PublishOperation(KademliaNode component, OverlayNodeID key,
+			OperationCallback<Object> callback) {
+		super(component, callback);
+		this.key = key;
+	}
+
+	@Override
+	protected void execute() {
+		getComponent().findNode(key, this);
+	}
+
+	@Override
+	public void calledOperationSucceeded(Operation<List<KademliaContact>> op) {
+		KademliaContact localContact = (KademliaContact) getComponent()
+				.getLocalOverlayContact();
+		for (KademliaContact closest : op.getResult()) {
+			getComponent().sendToNode(
+					new StoreMessage(localContact, key, getOperationID()),
+					closest);
+			numStored++;
+		}
+		operationFinished(true);
+	}
+
+	@Override
+	public void calledOperationFailed(Operation<List<KademliaContact>> op) {
+		operationFinished(false);
+	}
+
+	/**
+	 * Number of nodes the record was sent to
+	 * 
+	 * @return
+	 */
+	public int getNumStored() {
+		return numStored;
+	}
+
+	@Override
+	public Object getResult() {
+		return null;
+	}
+
+}
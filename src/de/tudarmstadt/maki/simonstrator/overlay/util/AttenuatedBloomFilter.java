@@ -0,0 +1,175 @@
+package de.tudarmstadt.maki.simonstrator.overlay.util;
+
+import java.util.Arrays;
+
+/**
+ * Attenuated Bloom filter: a stack of Bloom filters of equal size, where
+ * level i summarizes the content that is reachable i hops away. All levels
+ * are stored in one array of words (level-major), so that the filter can be
+ * compared and updated word by word.
+ *
+ * Keys are mapped to {@link #getNumHashes()} bit positions by double hashing
+ * of two independent 32 bit hashes of the key.
+ */
+public class AttenuatedBloomFilter {
+
+	private final int depth;
+
+	private final int numBits;
+
+	private final int numHashes;
+
+	private final int wordsPerLevel;
+
+	private final long[] words;
+
+	/**
+	 *
+	 * @param depth
+	 *            number of levels
+	 * @param numBits
+	 *            bits per level, rounded up to a multiple of 64
+	 * @param numHashes
+	 *            bits set per key
+	 */
+	public AttenuatedBloomFilter(int depth, int numBits, int numHashes) {
+		if (depth < 1 || numBits < 1 || numHashes < 1) {
+			throw new IllegalArgumentException(
+					"Depth, size and number of hashes have to be positive");
+		}
+		this.depth = depth;
+		this.wordsPerLevel = (numBits + 63) >>> 6;
+		this.numBits = wordsPerLevel << 6;
+		this.numHashes = numHashes;
+		this.words = new long[depth * wordsPerLevel];
+	}
+
+	/**
+	 * Empty filter of the same dimensions
+	 *
+	 * @param template
+	 */
+	public AttenuatedBloomFilter(AttenuatedBloomFilter template) {
+		this(template.depth, template.numBits, template.numHashes);
+	}
+
+	/**
+	 * Adds the key to the given level
+	 *
+	 * @param level
+	 * @param key
+	 */
+	public void add(int level, String key) {
+		int h1 = key.hashCode();
+		int h2 = secondHash(h1);
+		int offset = level * wordsPerLevel;
+		for (int i = 0; i < numHashes; i++) {
+			int bit = ((h1 + i * h2) & Integer.MAX_VALUE) % numBits;
+			words[offset + (bit >>> 6)] |= 1L << bit;
+		}
+	}
+
+	/**
+	 * True, if the key might be contained in the given level
+	 *
+	 * @param level
+	 * @param key
+	 * @return
+	 */
+	public boolean mightContain(int level, String key) {
+		int h1 = key.hashCode();
+		int h2 = secondHash(h1);
+		int offset = level * wordsPerLevel;
+		for (int i = 0; i < numHashes; i++) {
+			int bit = ((h1 + i * h2) & Integer.MAX_VALUE) % numBits;
+			if ((words[offset + (bit >>> 6)] & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * The first level (up to maxLevel, exclusive) that might contain the key,
+	 * or -1
+	 *
+	 * @param key
+	 * @param maxLevel
+	 * @return
+	 */
+	public int firstMatch(String key, int maxLevel) {
+		int levels = Math.min(maxLevel, depth);
+		for (int level = 0; level < levels; level++) {
+			if (mightContain(level, key)) {
+				return level;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Adds all keys of level <code>fromLevel</code> of the other filter to
+	 * level <code>toLevel</code> of this filter
+	 *
+	 * @param toLevel
+	 * @param other
+	 *            a filter of the same dimensions
+	 * @param fromLevel
+	 */
+	public void or(int toLevel, AttenuatedBloomFilter other, int fromLevel) {
+		int to = toLevel * wordsPerLevel;
+		int from = fromLevel * wordsPerLevel;
+		for (int i = 0; i < wordsPerLevel; i++) {
+			words[to + i] |= other.words[from + i];
+		}
+	}
+
+	public void clear() {
+		Arrays.fill(words, 0);
+	}
+
+	/**
+	 * Number of words of all levels
+	 *
+	 * @return
+	 */
+	public int getNumWords() {
+		return words.length;
+	}
+
+	public long getWord(int index) {
+		return words[index];
+	}
+
+	public void setWord(int index, long word) {
+		words[index] = word;
+	}
+
+	public int getDepth() {
+		return depth;
+	}
+
+	/**
+	 * Bits per level
+	 *
+	 * @return
+	 */
+	public int getNumBits() {
+		return numBits;
+	}
+
+	public int getNumHashes() {
+		return numHashes;
+	}
+
+	private static int secondHash(int h) {
+		// murmur3 finalizer, never 0 so that the positions differ
+		h ^= h >>> 16;
+		h *= 0x85ebca6b;
+		h ^= h >>> 13;
+		h *= 0xc2b2ae35;
+		h ^= h >>> 16;
+		return h | 1;
+	}
+
+}
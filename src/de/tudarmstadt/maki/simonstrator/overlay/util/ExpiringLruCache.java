@@ -0,0 +1,112 @@
+package de.tudarmstadt.maki.simonstrator.overlay.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache with least-recently-used eviction and a fixed time to live
+ * for each entry. Times are passed in by the caller (simulation time), so
+ * the cache does not depend on the scheduler. Expired entries are removed
+ * lazily on access or evicted as least recently used ones.
+ *
+ * @param <K>
+ * @param <V>
+ */
+public class ExpiringLruCache<K, V> {
+
+	private final int capacity;
+
+	private final long timeToLive;
+
+	private final LinkedHashMap<K, CacheEntry<V>> entries;
+
+	private static class CacheEntry<V> {
+
+		private final V value;
+
+		private final long expiresAt;
+
+		public CacheEntry(V value, long expiresAt) {
+			this.value = value;
+			this.expiresAt = expiresAt;
+		}
+
+	}
+
+	/**
+	 *
+	 * @param capacity
+	 *            maximum number of entries, 0 disables the cache
+	 * @param timeToLive
+	 */
+	public ExpiringLruCache(final int capacity, long timeToLive) {
+		this.capacity = capacity;
+		this.timeToLive = timeToLive;
+		this.entries = new LinkedHashMap<K, CacheEntry<V>>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(
+					Map.Entry<K, CacheEntry<V>> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	/**
+	 * True, if the cache stores anything at all
+	 *
+	 * @return
+	 */
+	public boolean isEnabled() {
+		return capacity > 0;
+	}
+
+	/**
+	 * Adds or replaces the entry, it expires after the time to live
+	 *
+	 * @param key
+	 * @param value
+	 * @param now
+	 */
+	public void put(K key, V value, long now) {
+		if (capacity > 0) {
+			entries.put(key, new CacheEntry<V>(value, now + timeToLive));
+		}
+	}
+
+	/**
+	 * The value of a live entry (which becomes the most recently used one),
+	 * or null
+	 *
+	 * @param key
+	 * @param now
+	 * @return
+	 */
+	public V get(K key, long now) {
+		CacheEntry<V> entry = entries.get(key);
+		if (entry != null && entry.expiresAt <= now) {
+			entries.remove(key);
+			entry = null;
+		}
+		if (entry == null) {
+			return null;
+		}
+		return entry.value;
+	}
+
+	public void clear() {
+		entries.clear();
+	}
+
+	/**
+	 * Number of entries, including expired ones that were not yet removed
+	 *
+	 * @return
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+}
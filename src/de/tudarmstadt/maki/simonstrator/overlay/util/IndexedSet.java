@@ -0,0 +1,250 @@
+package de.tudarmstadt.maki.simonstrator.overlay.util;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * Array-backed set with an index map. Elements can be added, removed and
+ * picked uniformly at random in O(1) - removal swaps the last element into the
+ * freed slot, therefore the set does not maintain any order.
+ *
+ * The set is not synchronized, as all overlay code is executed by the single
+ * simulator thread. Iterators work directly on the backing array and never
+ * throw a {@link java.util.ConcurrentModificationException}, so that debug
+ * output from other threads does not need a global monitor (at the cost of
+ * possibly seeing a slightly outdated state).
+ *
+ * @param <E>
+ */
+public class IndexedSet<E> extends AbstractSet<E> {
+
+	private Object[] elements;
+
+	private int size = 0;
+
+	private final Map<E, Integer> indices;
+
+	public IndexedSet() {
+		this(16);
+	}
+
+	/**
+	 *
+	 * @param initialCapacity
+	 */
+	public IndexedSet(int initialCapacity) {
+		this.elements = new Object[Math.max(initialCapacity, 1)];
+		this.indices = new HashMap<E, Integer>(Math.max(initialCapacity, 1) * 2);
+	}
+
+	@Override
+	public boolean add(E e) {
+		if (e == null) {
+			throw new NullPointerException();
+		}
+		if (indices.containsKey(e)) {
+			return false;
+		}
+		if (size == elements.length) {
+			elements = Arrays.copyOf(elements, size * 2);
+		}
+		elements[size] = e;
+		indices.put(e, size);
+		size++;
+		return true;
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		Integer index = indices.remove(o);
+		if (index == null) {
+			return false;
+		}
+		removeAt(index);
+		return true;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return indices.containsKey(o);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(elements, 0, size, null);
+		indices.clear();
+		size = 0;
+	}
+
+	/**
+	 * Element at the given position (0 <= index < size). Positions change on
+	 * removal.
+	 *
+	 * @param index
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	public E get(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException(String.valueOf(index));
+		}
+		return (E) elements[index];
+	}
+
+	/**
+	 * Uniformly random element, or null if the set is empty
+	 *
+	 * @param random
+	 * @return
+	 */
+	public E getRandom(Random random) {
+		if (size == 0) {
+			return null;
+		}
+		return get(random.nextInt(size));
+	}
+
+	/**
+	 * Removes and returns a uniformly random element, or null if the set is
+	 * empty
+	 *
+	 * @param random
+	 * @return
+	 */
+	public E removeRandom(Random random) {
+		if (size == 0) {
+			return null;
+		}
+		int index = random.nextInt(size);
+		E e = get(index);
+		indices.remove(e);
+		removeAt(index);
+		return e;
+	}
+
+	/**
+	 * Uniform random sample of up to <code>k</code> distinct elements, using a
+	 * partial Fisher-Yates shuffle on the backing array. Costs O(k),
+	 * independent of the size of the set. The element <code>exclude</code>
+	 * (may be null) is never part of the sample.
+	 *
+	 * @param k
+	 * @param random
+	 * @param exclude
+	 * @return a new list containing the sample
+	 */
+	public List<E> sample(int k, Random random, Object exclude) {
+		return sample(k, random, exclude, null);
+	}
+
+	/**
+	 * As {@link #sample(int, Random, Object)}, with two excluded elements
+	 * (each may be null)
+	 *
+	 * @param k
+	 * @param random
+	 * @param exclude
+	 * @param exclude2
+	 * @return a new list containing the sample
+	 */
+	@SuppressWarnings("unchecked")
+	public List<E> sample(int k, Random random, Object exclude,
+			Object exclude2) {
+		List<E> sample = new ArrayList<E>(Math.min(k, size));
+		for (int i = 0; i < size && sample.size() < k; i++) {
+			int j = i + random.nextInt(size - i);
+			swap(i, j);
+			E e = (E) elements[i];
+			if (!e.equals(exclude) && !e.equals(exclude2)) {
+				sample.add(e);
+			}
+		}
+		return sample;
+	}
+
+	@Override
+	public Iterator<E> iterator() {
+		return new IndexedSetIterator();
+	}
+
+	/**
+	 * Swap-remove of the element at the given index. The index map entry of
+	 * the removed element has to be deleted by the caller.
+	 *
+	 * @param index
+	 */
+	@SuppressWarnings("unchecked")
+	private void removeAt(int index) {
+		size--;
+		if (index != size) {
+			E last = (E) elements[size];
+			elements[index] = last;
+			indices.put(last, index);
+		}
+		elements[size] = null;
+	}
+
+	@SuppressWarnings("unchecked")
+	private void swap(int i, int j) {
+		if (i == j) {
+			return;
+		}
+		E ei = (E) elements[i];
+		E ej = (E) elements[j];
+		elements[i] = ej;
+		elements[j] = ei;
+		indices.put(ej, i);
+		indices.put(ei, j);
+	}
+
+	/**
+	 * Iterates from the end of the array to the beginning. This way, a
+	 * swap-remove of the current element only moves an element that has
+	 * already been visited.
+	 */
+	private class IndexedSetIterator implements Iterator<E> {
+
+		private int cursor = size;
+
+		private E current = null;
+
+		@Override
+		public boolean hasNext() {
+			return Math.min(cursor, size) > 0;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public E next() {
+			cursor = Math.min(cursor, size) - 1;
+			if (cursor < 0) {
+				throw new NoSuchElementException();
+			}
+			current = (E) elements[cursor];
+			return current;
+		}
+
+		@Override
+		public void remove() {
+			if (current == null) {
+				throw new IllegalStateException();
+			}
+			IndexedSet.this.remove(current);
+			current = null;
+		}
+
+	}
+
+}
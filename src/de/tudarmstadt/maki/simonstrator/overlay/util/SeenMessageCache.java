@@ -0,0 +1,167 @@
+package de.tudarmstadt.maki.simonstrator.overlay.util;
+
+/**
+ * Fixed-size duplicate filter for flooded messages. Keys are stored in a ring
+ * buffer (the oldest key is evicted as soon as the capacity is reached) and
+ * indexed by an open-addressing hash table, so that lookups and insertions are
+ * O(1) and the memory footprint stays constant for the whole simulation.
+ *
+ * Messages are identified by their origin and a per-origin sequence number,
+ * see {@link #key(long, int)}. A message that is older than the last
+ * <code>capacity</code> messages seen by this node is no longer recognized as
+ * a duplicate - the TTL of the flood has to make sure that such messages do
+ * not circulate for that long.
+ *
+ */
+public class SeenMessageCache {
+
+	/**
+	 * Ring buffer with the keys in the order they were added
+	 */
+	private final long[] ring;
+
+	/**
+	 * Next write position in the ring (points to the oldest key once the ring
+	 * is full)
+	 */
+	private int next = 0;
+
+	private int size = 0;
+
+	/**
+	 * Hash table with linear probing. Contains (ring position + 1), 0 marks an
+	 * empty slot.
+	 */
+	private final int[] table;
+
+	private final int mask;
+
+	private final int shift;
+
+	/**
+	 *
+	 * @param capacity
+	 *            number of keys that are remembered
+	 */
+	public SeenMessageCache(int capacity) {
+		if (capacity < 1) {
+			throw new AssertionError("The capacity has to be positive!");
+		}
+		this.ring = new long[capacity];
+		// load factor <= 0.5
+		int tableSize = Integer.highestOneBit(capacity) << 2;
+		this.table = new int[tableSize];
+		this.mask = tableSize - 1;
+		this.shift = 64 - Integer.numberOfTrailingZeros(tableSize);
+	}
+
+	/**
+	 * Creates the key for a message with the given sequence number that was
+	 * issued by the given origin. The lower 32 bit of the origin are used.
+	 *
+	 * @param origin
+	 * @param sequenceNumber
+	 * @return
+	 */
+	public static long key(long origin, int sequenceNumber) {
+		return (origin << 32) | (sequenceNumber & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Marks the key as seen.
+	 *
+	 * @param key
+	 * @return true, if the key was not yet known (i.e., the message is new),
+	 *         false if it is a duplicate
+	 */
+	public boolean markSeen(long key) {
+		if (contains(key)) {
+			return false;
+		}
+		if (size == ring.length) {
+			// evict the oldest key
+			removeFromTable(ring[next]);
+		} else {
+			size++;
+		}
+		ring[next] = key;
+		int i = indexFor(key);
+		while (table[i] != 0) {
+			i = (i + 1) & mask;
+		}
+		table[i] = next + 1;
+		next = (next + 1) % ring.length;
+		return true;
+	}
+
+	/**
+	 * True, if the key is currently remembered by the cache
+	 *
+	 * @param key
+	 * @return
+	 */
+	public boolean contains(long key) {
+		int i = indexFor(key);
+		while (table[i] != 0) {
+			if (ring[table[i] - 1] == key) {
+				return true;
+			}
+			i = (i + 1) & mask;
+		}
+		return false;
+	}
+
+	/**
+	 * Number of keys currently stored
+	 *
+	 * @return
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Maximum number of keys that are stored
+	 *
+	 * @return
+	 */
+	public int getCapacity() {
+		return ring.length;
+	}
+
+	private int indexFor(long key) {
+		return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift) & mask;
+	}
+
+	/**
+	 * Removes the key from the hash table using backward-shift deletion (no
+	 * tombstones, so the probe sequences stay short).
+	 *
+	 * @param key
+	 */
+	private void removeFromTable(long key) {
+		int i = indexFor(key);
+		while (table[i] != 0 && ring[table[i] - 1] != key) {
+			i = (i + 1) & mask;
+		}
+		if (table[i] == 0) {
+			return;
+		}
+		int j = i;
+		while (true) {
+			j = (j + 1) & mask;
+			if (table[j] == 0) {
+				break;
+			}
+			int k = indexFor(ring[table[j] - 1]);
+			// move the entry, if its home slot is not in (i, j]
+			boolean inBetween = i <= j ? (i < k && k <= j) : (i < k || k <= j);
+			if (!inBetween) {
+				table[i] = table[j];
+				i = j;
+			}
+		}
+		table[i] = 0;
+	}
+
+}
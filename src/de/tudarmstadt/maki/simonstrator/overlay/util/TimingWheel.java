@@ -0,0 +1,207 @@
+package de.tudarmstadt.maki.simonstrator.overlay.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hashed timing wheel for a large number of timeouts that are frequently
+ * rescheduled (e.g., one timeout per neighbor that is renewed with every
+ * received message). Instead of one simulator event per timeout, the owner
+ * calls {@link #advance(long, ExpirationHandler)} periodically.
+ *
+ * Timeouts are rounded up to multiples of the tick duration and kept in
+ * intrusive doubly-linked lists, one per slot. Scheduling, rescheduling and
+ * cancelling are O(1) and do not allocate, advancing the wheel by one tick
+ * only visits the entries of a single slot.
+ *
+ * @param <T>
+ *            the concrete timeout type
+ */
+public class TimingWheel<T extends TimingWheel.Timeout> {
+
+	/**
+	 * Base class of all entries of a wheel. An entry can be scheduled in at
+	 * most one wheel at a time.
+	 */
+	public static abstract class Timeout {
+
+		private Timeout prev;
+
+		private Timeout next;
+
+		private long deadlineTick;
+
+		private TimingWheel<?> wheel;
+
+		/**
+		 * True, if this timeout is currently scheduled
+		 *
+		 * @return
+		 */
+		public boolean isScheduled() {
+			return wheel != null;
+		}
+
+	}
+
+	/**
+	 * Called for each timeout that expired while advancing the wheel
+	 *
+	 * @param <T>
+	 */
+	public interface ExpirationHandler<T> {
+
+		public void expired(T timeout);
+
+	}
+
+	private final Timeout[] slots;
+
+	private final int mask;
+
+	private final long tickDuration;
+
+	/**
+	 * The last tick that was processed
+	 */
+	private long currentTick;
+
+	private int size = 0;
+
+	/**
+	 * Reused buffer for expired entries of one advance
+	 */
+	private final List<T> expired = new ArrayList<T>();
+
+	/**
+	 *
+	 * @param numSlots
+	 *            rounded up to a power of two
+	 * @param tickDuration
+	 *            granularity of the timeouts
+	 * @param now
+	 *            current time
+	 */
+	public TimingWheel(int numSlots, long tickDuration, long now) {
+		if (tickDuration <= 0) {
+			throw new IllegalArgumentException("Tick duration must be positive");
+		}
+		int capacity = Integer.highestOneBit(Math.max(1, numSlots - 1)) << 1;
+		this.slots = new Timeout[capacity];
+		this.mask = capacity - 1;
+		this.tickDuration = tickDuration;
+		this.currentTick = now / tickDuration;
+	}
+
+	/**
+	 * Schedules (or reschedules) the timeout to expire at the given time. The
+	 * timeout expires in the first call to advance at or after the deadline,
+	 * rounded up to the next tick.
+	 *
+	 * @param entry
+	 * @param deadline
+	 */
+	public void schedule(T entry, long deadline) {
+		Timeout timeout = entry;
+		if (timeout.wheel != null) {
+			if (timeout.wheel != this) {
+				throw new IllegalStateException(
+						"Timeout is scheduled in another wheel");
+			}
+			unlink(timeout);
+		}
+		long tick = (deadline + tickDuration - 1) / tickDuration;
+		timeout.deadlineTick = Math.max(tick, currentTick + 1);
+		int slot = (int) (timeout.deadlineTick & mask);
+		timeout.prev = null;
+		timeout.next = slots[slot];
+		if (slots[slot] != null) {
+			slots[slot].prev = timeout;
+		}
+		slots[slot] = timeout;
+		timeout.wheel = this;
+		size++;
+	}
+
+	/**
+	 * Removes the timeout from the wheel
+	 *
+	 * @param entry
+	 * @return false, if it was not scheduled
+	 */
+	public boolean cancel(T entry) {
+		Timeout timeout = entry;
+		if (timeout.wheel != this) {
+			return false;
+		}
+		unlink(timeout);
+		return true;
+	}
+
+	private void unlink(Timeout timeout) {
+		int slot = (int) (timeout.deadlineTick & mask);
+		if (timeout.prev != null) {
+			timeout.prev.next = timeout.next;
+		} else {
+			slots[slot] = timeout.next;
+		}
+		if (timeout.next != null) {
+			timeout.next.prev = timeout.prev;
+		}
+		timeout.prev = null;
+		timeout.next = null;
+		timeout.wheel = null;
+		size--;
+	}
+
+	/**
+	 * Processes all ticks up to the given time and passes expired timeouts
+	 * to the handler. Expired timeouts are removed from the wheel before the
+	 * handler is called, so that the handler may reschedule them.
+	 *
+	 * @param now
+	 * @param handler
+	 */
+	@SuppressWarnings("unchecked")
+	public void advance(long now, ExpirationHandler<? super T> handler) {
+		long targetTick = now / tickDuration;
+		if (targetTick <= currentTick) {
+			return;
+		}
+		long firstTick = currentTick + 1;
+		if (targetTick - firstTick >= slots.length) {
+			// each slot has to be visited only once
+			firstTick = targetTick - slots.length + 1;
+		}
+		for (long tick = firstTick; tick <= targetTick; tick++) {
+			Timeout timeout = slots[(int) (tick & mask)];
+			while (timeout != null) {
+				Timeout next = timeout.next;
+				if (timeout.deadlineTick <= targetTick) {
+					unlink(timeout);
+					expired.add((T) timeout);
+				}
+				timeout = next;
+			}
+		}
+		currentTick = targetTick;
+		for (int i = 0; i < expired.size(); i++) {
+			handler.expired(expired.get(i));
+		}
+		expired.clear();
+	}
+
+	/**
+	 * Number of scheduled timeouts
+	 *
+	 * @return
+	 */
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+}
@@ -24,6 +24,7 @@ package de.tudarmstadt.maki.simonstrator.peerfact;
 
 import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingContact;
 import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingNode;
+import de.tudarmstadt.maki.simonstrator.overlay.flooding.FloodingNodeRegistry;
 
 /**
  * Starts a window to select a configuration file to run PFS from. Useful for
@@ -47,7 +48,8 @@ public class GUIRunner {
 					Thread.sleep(1000 * 10);
 					System.out.println("Start printing");
 					long total = 0;
-					for (FloodingNode fn : FloodingNode.allNodes) {
+					FloodingNodeRegistry.Snapshot nodes = FloodingNodeRegistry.snapshot();
+					for (FloodingNode fn : nodes) {
 						total += fn.connectedNeighbors.size();
 						StringBuilder sb = new StringBuilder();
 						sb.append(String.format("%2d", fn.getLocalOverlayContact().getNodeID().value()));
@@ -61,10 +63,10 @@ public class GUIRunner {
 								fn.acceptIngoingConnectionsAccepted.availablePermits(),
 								fn.establishOutgoingConnections.availablePermits(),
 								fn.establishOutgoingConnectionsAccepted.availablePermits(),
-								fn.maxConnectionAttempts.availablePermits()),
+								fn.getConnectionManager().getNumPending()),
 								fn.connectedNeighbors.size());
 					}
-					System.out.printf("Average number of connections: %.3f\n", (((double) total) / FloodingNode.allNodes.size()));
+					System.out.printf("Average number of connections: %.3f\n", (((double) total) / nodes.size()));
 					System.out.println("finished");
 				} catch (InterruptedException e) {
 					e.printStackTrace();